@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+#
+# Measures time from process launch to the first successful POST /api/activate,
+# and the resident set size of the process at that point.
+#
+# Usage: scripts/measure-startup.sh [fast|default|native] [runs]
+#   fast     uses the classpath and AppCDS archive produced by ./mvnw -Pfast-startup package
+#   default  runs the repackaged jar with the default profile
+#   native   runs the binary produced by ./mvnw -Pnative package
+#
+# Prints one line per run and the medians. Run it once per mode to compare builds.
+
+set -euo pipefail
+
+MODE="${1:-fast}"
+RUNS="${2:-5}"
+PORT="${PORT:-18081}"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAR="$(ls "$TARGET"/SimCardActivator-*-exec.jar 2>/dev/null || ls "$TARGET"/SimCardActivator-*.jar | grep -v original | head -n 1)"
+MAIN_CLASS="au.com.telstra.simcardactivator.SimCardActivator"
+
+case "$MODE" in
+  fast)
+    [ -f "$TARGET/app-cds.jsa" ] || { echo "Missing $TARGET/app-cds.jsa, run ./mvnw -Pfast-startup -DskipTests package" >&2; exit 1; }
+    CMD=(java -XX:SharedArchiveFile="$TARGET/app-cds.jsa" -Xshare:auto
+         -Dspring.profiles.active=fast-startup -Dserver.port="$PORT"
+         -cp "$JAR.original:$TARGET/lib/*" "$MAIN_CLASS")
+    ;;
+  default)
+    CMD=(java -Dserver.port="$PORT" -jar "$JAR")
+    ;;
+  native)
+    [ -x "$TARGET/sim-card-activator" ] || { echo "Missing $TARGET/sim-card-activator, run ./mvnw -Pnative -DskipTests package" >&2; exit 1; }
+    CMD=("$TARGET/sim-card-activator" -Dserver.port="$PORT")
+    ;;
+  *)
+    echo "Unknown mode: $MODE" >&2
+    exit 1
+    ;;
+esac
+
+results=()
+rss_results=()
+for run in $(seq 1 "$RUNS"); do
+  iccid="$(printf '8944500102198%06d' "$run$RANDOM")"
+  start=$(date +%s%N)
+  "${CMD[@]}" > "$TARGET/measure-startup-$run.log" 2>&1 &
+  pid=$!
+
+  until curl -s -o /dev/null -w '%{http_code}' -X POST "http://localhost:$PORT/api/activate" \
+          -H 'Content-Type: application/json' \
+          -d "{\"iccid\":\"$iccid\",\"customerEmail\":\"startup@example.com\"}" 2>/dev/null | grep -q '^200$'; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Service exited before becoming ready, see $TARGET/measure-startup-$run.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+  results+=("$elapsed")
+  rss_results+=("$rss_kb")
+  echo "run $run: ${elapsed} ms, RSS $(( rss_kb / 1024 )) MB"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
+
+median() {
+  printf '%s\n' "$@" | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }'
+}
+echo "$MODE median time to first successful activation: $(median "${results[@]}") ms"
+echo "$MODE median RSS after first activation: $(( $(median "${rss_results[@]}") / 1024 )) MB"
@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+#
+# Starts a local activator cluster with consistent-hash ICCID ownership.
+#
+# Usage: scripts/run-cluster.sh [nodes] [base-port]
+#   nodes      number of instances to start (default 3)
+#   base-port  port of the first instance (default 8081)
+#
+# Each instance logs to target/cluster/node-<port>.log. Press Ctrl+C to stop them all.
+
+set -euo pipefail
+
+NODES="${1:-3}"
+BASE_PORT="${2:-8081}"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+JAR="$(ls "$TARGET"/SimCardActivator-*-exec.jar 2>/dev/null || ls "$TARGET"/SimCardActivator-*.jar | grep -v original | head -n 1)"
+LOG_DIR="$TARGET/cluster"
+mkdir -p "$LOG_DIR"
+
+PEERS=""
+SECRET="${ACTIVATION_CLUSTER_SECRET:-$(head -c 32 /dev/urandom | base64)}"
+for ((i = 0; i < NODES; i++)); do
+  PEERS="${PEERS:+$PEERS,}http://localhost:$((BASE_PORT + i))"
+done
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null || true' EXIT INT TERM
+
+for ((i = 0; i < NODES; i++)); do
+  PORT=$((BASE_PORT + i))
+  java -Dserver.port="$PORT" \
+       -Dactivation.cluster.enabled=true \
+       -Dactivation.cluster.self="http://localhost:$PORT" \
+       -Dactivation.cluster.peers="$PEERS" \
+       -Dactivation.cluster.secret="$SECRET" \
+       -Dactivation.archive.cold.directory="$LOG_DIR/cold-$PORT" \
+       -jar "$JAR" > "$LOG_DIR/node-$PORT.log" 2>&1 &
+  PIDS+=($!)
+  echo "Started node on port $PORT (pid $!)"
+done
+
+echo "Peers: $PEERS"
+wait
@@ -0,0 +1,355 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes activation results to Server-Sent Events subscribers.
+ * Subscribers follow one ICCID, one customer email or the global feed. Publishing
+ * only enqueues into each subscriber's bounded buffer and never blocks the
+ * activation path; a small dispatcher pool drains the buffers, and subscribers
+ * whose buffer overflows are disconnected.
+ * Writing to a client that has stopped reading blocks the dispatcher thread, so a
+ * watchdog evicts subscribers whose send has been in progress for longer than the
+ * send timeout and adds a dispatcher thread in place of the blocked one until the
+ * send returns. A slow client can therefore hold at most its own thread, never the
+ * threads serving the other subscribers. At most max-stalled-sends threads are added;
+ * subscribers stalling beyond that are still dropped, but their threads are not replaced.
+ */
+@Component
+public class ActivationEventBroadcaster {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActivationEventBroadcaster.class);
+    private static final String EVENT_NAME = "activation";
+    
+    @Value("${activation.events.buffer-size:32}")
+    private int bufferSize;
+    
+    @Value("${activation.events.timeout-ms:1800000}")
+    private long timeoutMillis;
+    
+    @Value("${activation.events.dispatch-threads:4}")
+    private int dispatchThreads;
+    
+    @Value("${activation.events.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+    
+    @Value("${activation.events.max-stalled-sends:16}")
+    private int maxStalledSends;
+    
+    private final ConcurrentMap<String, Set<Subscriber>> byIccid = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Subscriber>> byCustomer = new ConcurrentHashMap<>();
+    private final Set<Subscriber> global = ConcurrentHashMap.newKeySet();
+    
+    // Subscribers with a send in progress, checked by the watchdog
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    
+    private ThreadPoolExecutor dispatcher;
+    
+    private ScheduledExecutorService watchdog;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // The core size grows by one for every evicted subscriber still blocked in a send, up to the maximum
+        dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads + maxStalledSends, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "activation-events-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activation-events-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, sendTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::evictStalled, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdownNow();
+        dispatcher.shutdownNow();
+        global.forEach(Subscriber::close);
+        byIccid.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+        byCustomer.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+    }
+    
+    /**
+     * Subscribes to activation events for one ICCID, one customer or all activations.
+     * 
+     * @param iccid the ICCID to follow, or null
+     * @param customerEmail the customer email to follow, or null
+     * @return the emitter streaming the events
+     */
+    public SseEmitter subscribe(String iccid, String customerEmail) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber;
+        if (iccid != null) {
+            subscriber = register(emitter, byIccid, iccid);
+        } else if (customerEmail != null) {
+            subscriber = register(emitter, byCustomer, CustomerEmails.normalize(customerEmail));
+        } else {
+            subscriber = new Subscriber(emitter, global, null, null);
+            global.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::unregister);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+    
+    private Subscriber register(SseEmitter emitter, ConcurrentMap<String, Set<Subscriber>> topics, String key) {
+        while (true) {
+            Set<Subscriber> subscribers = topics.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+            Subscriber subscriber = new Subscriber(emitter, subscribers, topics, key);
+            subscribers.add(subscriber);
+            // The set may have been removed by the last subscriber leaving concurrently
+            if (topics.get(key) == subscribers) {
+                return subscriber;
+            }
+            subscribers.remove(subscriber);
+        }
+    }
+    
+    /**
+     * Publishes a persisted activation result to the matching subscribers.
+     * 
+     * @param record the persisted activation record
+     */
+    public void publish(SimCardActivationRecord record) {
+        if (global.isEmpty() && byIccid.isEmpty() && byCustomer.isEmpty()) {
+            return;
+        }
+        SimCardResponse event = new SimCardResponse(record.getIccid(), record.getCustomerEmail(), record.isActive());
+        offerAll(global, event);
+        offerAll(byIccid.get(record.getIccid()), event);
+        offerAll(byCustomer.get(CustomerEmails.normalize(record.getCustomerEmail())), event);
+    }
+    
+    private void offerAll(Set<Subscriber> subscribers, SimCardResponse event) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+    
+    /**
+     * Evicts subscribers whose current send has exceeded the send timeout and
+     * replaces their dispatcher threads.
+     */
+    private void evictStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            if (subscriber.stalledSince(now) > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis)) {
+                subscriber.evict();
+            }
+        }
+    }
+    
+    private synchronized boolean addDispatcher() {
+        if (dispatcher.getCorePoolSize() >= dispatcher.getMaximumPoolSize()) {
+            return false;
+        }
+        dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + 1);
+        return true;
+    }
+    
+    private synchronized void removeDispatcher() {
+        dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() - 1);
+    }
+    
+    public int dispatcherThreads() {
+        return dispatcher.getCorePoolSize();
+    }
+    
+    public int subscriberCount() {
+        int count = global.size();
+        for (Set<Subscriber> subscribers : byIccid.values()) {
+            count += subscribers.size();
+        }
+        for (Set<Subscriber> subscribers : byCustomer.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+    
+    /**
+     * One connected client with its bounded event buffer.
+     */
+    private final class Subscriber {
+    
+        private final SseEmitter emitter;
+        private final Set<Subscriber> owner;
+        private final ConcurrentMap<String, Set<Subscriber>> topics;
+        private final String topicKey;
+        private final BlockingQueue<SimCardResponse> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        
+        // System.nanoTime() when the current send started, or 0 when none is in progress; guarded by this
+        private long sendStartedNanos;
+        
+        // Whether the watchdog added a dispatcher thread for the current send; guarded by this
+        private boolean replaced;
+        
+        // Whether the watchdog has evicted this subscriber; guarded by this
+        private boolean evicted;
+        
+        Subscriber(SseEmitter emitter, Set<Subscriber> owner, ConcurrentMap<String, Set<Subscriber>> topics,
+                   String topicKey) {
+            this.emitter = emitter;
+            this.owner = owner;
+            this.topics = topics;
+            this.topicKey = topicKey;
+        }
+        
+        void offer(SimCardResponse event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                logger.warn("Dropping slow activation event subscriber for {}", describe());
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+        
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                SimCardResponse event;
+                // Send at most one buffer's worth per turn so busy subscribers share the threads
+                for (int sent = 0; sent < bufferSize && !closed.get() && (event = buffer.poll()) != null; sent++) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                closed.set(true);
+                unregister();
+            } finally {
+                draining.set(false);
+            }
+            if (closed.get()) {
+                // Closed while this thread held the emitter; complete it now that no send is in progress
+                if (draining.compareAndSet(false, true)) {
+                    complete();
+                }
+            } else if (!buffer.isEmpty()) {
+                // An event may have arrived after the last poll but before the flag was cleared
+                scheduleDrain();
+            }
+        }
+        
+        private void send(SimCardResponse event) throws IOException {
+            synchronized (this) {
+                sendStartedNanos = System.nanoTime();
+            }
+            sending.add(this);
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(event));
+            } finally {
+                sending.remove(this);
+                synchronized (this) {
+                    sendStartedNanos = 0;
+                    if (replaced) {
+                        // The watchdog added a thread in place of this one while the send was blocked
+                        replaced = false;
+                        removeDispatcher();
+                    }
+                }
+            }
+        }
+        
+        synchronized long stalledSince(long now) {
+            return sendStartedNanos == 0 ? 0 : now - sendStartedNanos;
+        }
+        
+        /**
+         * Disconnects a subscriber blocked in a send and adds a dispatcher thread in its place,
+         * unless max-stalled-sends threads have already been added.
+         * The emitter is completed by the blocked thread once the send returns, since
+         * completing it here would wait for the send.
+         */
+        void evict() {
+            boolean threadAdded;
+            synchronized (this) {
+                if (sendStartedNanos == 0 || evicted) {
+                    return;
+                }
+                evicted = true;
+                replaced = addDispatcher();
+                threadAdded = replaced;
+            }
+            if (threadAdded) {
+                logger.warn("Evicting stalled activation event subscriber for {}", describe());
+            } else {
+                logger.warn("Evicting stalled activation event subscriber for {} without replacing its thread, "
+                    + "{} stalled sends already hold added threads", describe(), maxStalledSends);
+            }
+            closed.set(true);
+            unregister();
+            buffer.clear();
+        }
+        
+        /**
+         * Disconnects a subscriber. The emitter is completed straight away unless a dispatcher
+         * thread is sending to it, in which case that thread completes it when the send returns.
+         */
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                unregister();
+                buffer.clear();
+                if (draining.compareAndSet(false, true)) {
+                    complete();
+                }
+            }
+        }
+        
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+        
+        void unregister() {
+            closed.set(true);
+            owner.remove(this);
+            if (topics != null && owner.isEmpty()) {
+                topics.remove(topicKey, owner);
+            }
+        }
+        
+        private String describe() {
+            return topicKey != null ? topicKey : "global feed";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Optional;
+
+/**
+ * REST controller for bulk SIM card activation imports.
+ * Accepts CSV (iccid,customerEmail) or NDJSON bodies of any size and streams
+ * back a per-row CSV report while the import runs.
+ */
+@RestController
+@RequestMapping("/api/activations/import")
+public class ActivationImportController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActivationImportController.class);
+    private static final String IMPORT_ID_HEADER = "X-Import-Id";
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+    
+    @Autowired
+    private ActivationImportService importService;
+    
+    /**
+     * Imports activations from the request body.
+     * The import ID is returned in the X-Import-Id header before the report
+     * is streamed, so progress can be polled while the import runs.
+     * 
+     * @param request the HTTP request carrying the CSV or NDJSON body
+     * @param response the HTTP response the report is streamed to
+     * @throws IOException if the report cannot be written
+     */
+    @PostMapping(consumes = {CSV_MEDIA_TYPE, NDJSON_MEDIA_TYPE, MediaType.TEXT_PLAIN_VALUE})
+    public void importActivations(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ActivationImportService.Format format = request.getContentType() != null
+                && request.getContentType().startsWith(NDJSON_MEDIA_TYPE)
+            ? ActivationImportService.Format.NDJSON
+            : ActivationImportService.Format.CSV;
+        ActivationImportProgress progress = importService.startImport();
+        logger.info("Received {} activation import {}", format, progress.getImportId());
+        
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(CSV_MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(IMPORT_ID_HEADER, progress.getImportId());
+        
+        BufferedReader body = request.getReader();
+        PrintWriter report = response.getWriter();
+        importService.runImport(progress, body, format, report);
+    }
+    
+    /**
+     * Retrieves the progress of an import.
+     * 
+     * @param importId the import ID
+     * @return the import progress if found
+     */
+    @GetMapping("/{importId}")
+    public ResponseEntity<ActivationImportProgress> getImportProgress(@PathVariable String importId) {
+        try {
+            Optional<ActivationImportProgress> progress = importService.getProgress(importId);
+            if (progress.isPresent()) {
+                return ResponseEntity.ok(progress.get());
+            } else {
+                logger.warn("Activation import not found: {}", importId);
+                return ResponseEntity.notFound().build();
+            }
+        } catch (Exception e) {
+            logger.error("Error retrieving activation import {}: {}", importId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of a bulk activation import.
+ * Counters are updated concurrently by the import workers and can be read
+ * while the import is still running.
+ */
+@JsonIgnoreProperties(value = "rowsProcessed", allowGetters = true)
+public class ActivationImportProgress {
+    
+    public enum State { RUNNING, COMPLETED, FAILED }
+    
+    private final String importId;
+    private final LocalDateTime startedAt;
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private volatile State state = State.RUNNING;
+    private volatile LocalDateTime completedAt;
+    private volatile String error;
+    
+    // Constructor with parameters
+    public ActivationImportProgress(String importId) {
+        this.importId = importId;
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Constructor for reading a progress snapshot, e.g. in clients of the status endpoint
+    @JsonCreator
+    public ActivationImportProgress(@JsonProperty("importId") String importId,
+                                    @JsonProperty("state") State state,
+                                    @JsonProperty("startedAt") LocalDateTime startedAt,
+                                    @JsonProperty("completedAt") LocalDateTime completedAt,
+                                    @JsonProperty("rowsRead") long rowsRead,
+                                    @JsonProperty("succeeded") long succeeded,
+                                    @JsonProperty("failed") long failed,
+                                    @JsonProperty("skipped") long skipped,
+                                    @JsonProperty("invalid") long invalid,
+                                    @JsonProperty("error") String error) {
+        this.importId = importId;
+        this.startedAt = startedAt;
+        this.rowsRead.add(rowsRead);
+        this.succeeded.add(succeeded);
+        this.failed.add(failed);
+        this.skipped.add(skipped);
+        this.invalid.add(invalid);
+        this.state = state != null ? state : State.RUNNING;
+        this.completedAt = completedAt;
+        this.error = error;
+    }
+    
+    void rowRead() {
+        rowsRead.increment();
+    }
+    
+    void rowSucceeded() {
+        succeeded.increment();
+    }
+    
+    void rowFailed() {
+        failed.increment();
+    }
+    
+    void rowSkipped() {
+        skipped.increment();
+    }
+    
+    void rowInvalid() {
+        invalid.increment();
+    }
+    
+    void complete() {
+        completedAt = LocalDateTime.now();
+        state = State.COMPLETED;
+    }
+    
+    void fail(String message) {
+        completedAt = LocalDateTime.now();
+        error = message;
+        state = State.FAILED;
+    }
+    
+    // Getters
+    @JsonProperty("importId")
+    public String getImportId() {
+        return importId;
+    }
+    
+    @JsonProperty("state")
+    public State getState() {
+        return state;
+    }
+    
+    @JsonProperty("startedAt")
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    @JsonProperty("completedAt")
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    @JsonProperty("rowsRead")
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+    
+    @JsonProperty("rowsProcessed")
+    public long getRowsProcessed() {
+        return succeeded.sum() + failed.sum() + skipped.sum() + invalid.sum();
+    }
+    
+    @JsonProperty("succeeded")
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+    
+    @JsonProperty("failed")
+    public long getFailed() {
+        return failed.sum();
+    }
+    
+    @JsonProperty("skipped")
+    public long getSkipped() {
+        return skipped.sum();
+    }
+    
+    @JsonProperty("invalid")
+    public long getInvalid() {
+        return invalid.sum();
+    }
+    
+    @JsonProperty("error")
+    public String getError() {
+        return error;
+    }
+    
+    @Override
+    public String toString() {
+        return "ActivationImportProgress{" +
+                "importId='" + importId + '\'' +
+                ", state=" + state +
+                ", rowsRead=" + getRowsRead() +
+                ", succeeded=" + getSucceeded() +
+                ", failed=" + getFailed() +
+                ", skipped=" + getSkipped() +
+                ", invalid=" + getInvalid() +
+                '}';
+    }
+}
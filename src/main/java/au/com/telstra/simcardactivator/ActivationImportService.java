@@ -0,0 +1,332 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for bulk activation imports.
+ * Rows are parsed one line at a time from the request body and handed to a
+ * shared worker pool. A per-import permit count bounds the rows in flight, so
+ * a slow activation path stops the body from being read instead of buffering it.
+ * A row the concurrency limiter rejects is retried by its worker after an exponential
+ * backoff, still holding its permit, so an overloaded actuator slows the import down
+ * instead of failing its rows. A row still rejected after max-attempts tries is reported
+ * as REJECTED; nothing is recorded for it, so re-submitting the import retries it.
+ */
+@Service
+public class ActivationImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActivationImportService.class);
+    private static final String REPORT_HEADER = "line,iccid,status";
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_FAILURE = "FAILURE";
+    private static final String STATUS_SKIPPED = "SKIPPED";
+    private static final String STATUS_INVALID = "INVALID";
+    private static final String STATUS_ERROR = "ERROR";
+    private static final String STATUS_REJECTED = "REJECTED";
+    private static final int REPORT_FLUSH_INTERVAL = 100;
+    private static final int RETAINED_IMPORTS = 100;
+    
+    public enum Format { CSV, NDJSON }
+    
+    @Value("${activation.import.concurrency:8}")
+    private int concurrency;
+    
+    @Value("${activation.import.max-in-flight:64}")
+    private int maxInFlight;
+    
+    @Value("${activation.import.retry-delay-ms:100}")
+    private long retryDelayMillis;
+    
+    @Value("${activation.import.max-retry-delay-ms:5000}")
+    private long maxRetryDelayMillis;
+    
+    @Value("${activation.import.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Autowired
+    private SimCardActivationService activationService;
+    
+    @Autowired
+    private ClusterRouter clusterRouter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final Map<String, ActivationImportProgress> imports = new ConcurrentHashMap<>();
+    
+    private ExecutorService workers;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "activation-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+    
+    /**
+     * Registers a new import so its progress can be queried while it runs.
+     * 
+     * @return the progress of the new import
+     */
+    public ActivationImportProgress startImport() {
+        evictCompletedImports();
+        ActivationImportProgress progress = new ActivationImportProgress(UUID.randomUUID().toString());
+        imports.put(progress.getImportId(), progress);
+        logger.info("Starting activation import {}", progress.getImportId());
+        return progress;
+    }
+    
+    /**
+     * Retrieves the progress of an import.
+     * 
+     * @param importId the import ID
+     * @return optional containing the progress if the import is known
+     */
+    public Optional<ActivationImportProgress> getProgress(String importId) {
+        return Optional.ofNullable(imports.get(importId));
+    }
+    
+    /**
+     * Runs an import, writing one report line per row as rows complete.
+     * Rows whose ICCID is already recorded are reported as skipped, so an
+     * interrupted import can simply be re-submitted. Every exit waits for the rows
+     * still in flight, so no worker writes to the report after the request has ended;
+     * when reading fails, rows that have not started yet are dropped.
+     * 
+     * @param progress the import progress
+     * @param body the request body reader
+     * @param format the body format
+     * @param report the report writer
+     */
+    public void runImport(ActivationImportProgress progress, BufferedReader body, Format format, PrintWriter report) {
+        Semaphore permits = new Semaphore(maxInFlight);
+        AtomicBoolean aborted = new AtomicBoolean();
+        String failure = null;
+        report.println(REPORT_HEADER);
+        report.flush();
+        try {
+            long lineNumber = 0;
+            String line;
+            while ((line = body.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+                progress.rowRead();
+                SimCardActivationRequest row = parseRow(line, format);
+                if (row == null || isBlank(row.getIccid()) || isBlank(row.getCustomerEmail())) {
+                    progress.rowInvalid();
+                    writeResult(report, progress, lineNumber, row != null ? row.getIccid() : null, STATUS_INVALID);
+                    continue;
+                }
+                permits.acquire();
+                long rowLine = lineNumber;
+                try {
+                    workers.execute(() -> {
+                        try {
+                            if (!aborted.get()) {
+                                processRow(progress, rowLine, row, report);
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error reading activation import {}: {}", progress.getImportId(), e.getMessage(), e);
+            aborted.set(true);
+            failure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            failure = "Import interrupted";
+        } finally {
+            // Wait for the rows still in flight
+            permits.acquireUninterruptibly(maxInFlight);
+        }
+        if (failure != null) {
+            progress.fail(failure);
+        } else {
+            progress.complete();
+            logger.info("Completed activation import: {}", progress);
+        }
+        synchronized (report) {
+            report.println("# " + progress);
+            report.flush();
+        }
+    }
+    
+    /**
+     * Activates one row and records its outcome, backing off and retrying while the
+     * activation is rejected.
+     * 
+     * @param progress the import progress
+     * @param lineNumber the line number of the row in the body
+     * @param row the parsed row
+     * @param report the report writer
+     */
+    private void processRow(ActivationImportProgress progress, long lineNumber, SimCardActivationRequest row,
+                            PrintWriter report) {
+        String iccid = row.getIccid().trim();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                activateRow(progress, lineNumber, iccid, row.getCustomerEmail().trim(), report);
+                return;
+            } catch (ActivationRejectedException e) {
+                if (attempt >= maxAttempts) {
+                    logger.warn("Giving up on line {} of import {} after {} attempts: {}",
+                        lineNumber, progress.getImportId(), attempt, e.getMessage());
+                    break;
+                }
+                long delay = Math.min(maxRetryDelayMillis, retryDelayMillis << Math.min(attempt - 1, 20));
+                logger.debug("Line {} of import {} rejected, retrying in {} ms", lineNumber, progress.getImportId(), delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        progress.rowFailed();
+        writeResult(report, progress, lineNumber, iccid, STATUS_REJECTED);
+    }
+    
+    /**
+     * Activates one row once and records its outcome.
+     * 
+     * @param progress the import progress
+     * @param lineNumber the line number of the row in the body
+     * @param iccid the row's ICCID
+     * @param customerEmail the row's customer email
+     * @param report the report writer
+     * @throws ActivationRejectedException if the activation could not be attempted now
+     */
+    private void activateRow(ActivationImportProgress progress, long lineNumber, String iccid, String customerEmail,
+                             PrintWriter report) {
+        try {
+            // In cluster mode the ICCID's owner activates it, so duplicate detection holds cluster-wide
+            Boolean ownerResult = clusterRouter.activateOnOwner(iccid, customerEmail);
+            if (ownerResult == null && activationService.isActivationRecorded(iccid)) {
+                progress.rowSkipped();
+                writeResult(report, progress, lineNumber, iccid, STATUS_SKIPPED);
+                return;
+            }
+            boolean success = ownerResult != null ? ownerResult : activationService.activateSimCard(iccid, customerEmail);
+            if (success) {
+                progress.rowSucceeded();
+            } else {
+                progress.rowFailed();
+            }
+            writeResult(report, progress, lineNumber, iccid, success ? STATUS_SUCCESS : STATUS_FAILURE);
+        } catch (ActivationRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error importing line {} of import {}: {}", lineNumber, progress.getImportId(), e.getMessage());
+            progress.rowFailed();
+            writeResult(report, progress, lineNumber, iccid, STATUS_ERROR);
+        }
+    }
+    
+    /**
+     * Parses one body line into an activation request.
+     * 
+     * @param line the body line
+     * @param format the body format
+     * @return the parsed request, or null if the line cannot be parsed
+     */
+    private SimCardActivationRequest parseRow(String line, Format format) {
+        if (format == Format.NDJSON) {
+            try {
+                return objectMapper.readValue(line, SimCardActivationRequest.class);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        String[] columns = line.split(",", -1);
+        if (columns.length < 2) {
+            return null;
+        }
+        return new SimCardActivationRequest(unquote(columns[0]), unquote(columns[1]));
+    }
+    
+    private void writeResult(PrintWriter report, ActivationImportProgress progress, long lineNumber,
+                             String iccid, String status) {
+        synchronized (report) {
+            report.print(lineNumber);
+            report.print(',');
+            report.print(iccid != null ? iccid : "");
+            report.print(',');
+            report.println(status);
+            if (progress.getRowsProcessed() % REPORT_FLUSH_INTERVAL == 0) {
+                report.flush();
+            }
+        }
+    }
+    
+    private boolean isCsvHeader(String line) {
+        return line.toLowerCase().contains("iccid");
+    }
+    
+    private String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+    
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    /**
+     * Drops the oldest finished imports once more than the retained number are tracked.
+     */
+    private void evictCompletedImports() {
+        if (imports.size() < RETAINED_IMPORTS) {
+            return;
+        }
+        Iterator<ActivationImportProgress> iterator = imports.values().stream()
+            .filter(progress -> progress.getState() != ActivationImportProgress.State.RUNNING)
+            .sorted((left, right) -> left.getStartedAt().compareTo(right.getStartedAt()))
+            .limit(imports.size() - RETAINED_IMPORTS + 1)
+            .iterator();
+        while (iterator.hasNext()) {
+            imports.remove(iterator.next().getImportId());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package au.com.telstra.simcardactivator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the activation lifecycle.
+ * Each event is a duration event carrying a hash of the ICCID rather than the ICCID
+ * itself, so events for one SIM can be correlated. The hash is unkeyed and ICCIDs come
+ * from a small space, so it can be reversed by brute force; recordings must be handled
+ * as carefully as the ICCIDs themselves. Events are only populated and committed when
+ * a recording has them enabled and they exceed its threshold; see
+ * src/main/resources/jfr/activation.jfc.
+ */
+public final class ActivationJfrEvents {
+    
+    static final String CATEGORY = "SIM Card Activator";
+    
+    private ActivationJfrEvents() {}
+    
+    /**
+     * Base class holding the fields shared by all activation events.
+     */
+    abstract static class ActivationLifecycleEvent extends Event {
+        
+        @Label("ICCID Hash")
+        @Description("64-bit FNV-1a hash of the ICCID")
+        long iccidHash;
+        
+        @Label("Outcome")
+        String outcome;
+        
+        private transient String iccid;
+        
+        final void start(String iccid) {
+            this.iccid = iccid;
+            begin();
+        }
+        
+        /**
+         * Ends the event and commits it if the recording wants it.
+         * 
+         * @param outcome the outcome of the operation
+         */
+        final void finish(String outcome) {
+            end();
+            if (shouldCommit()) {
+                this.iccidHash = iccid != null ? Iccids.hash(iccid) : 0L;
+                this.outcome = outcome;
+                commit();
+            }
+        }
+    }
+    
+    @Name("au.com.telstra.simcardactivator.Activation")
+    @Label("Activation")
+    @Description("A SIM card activation request, from start to result")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Activation extends ActivationLifecycleEvent {
+        
+        @Label("Coalesced")
+        @Description("Whether the result was shared from a concurrent activation of the same ICCID")
+        boolean coalesced;
+        
+        static Activation started(String iccid) {
+            Activation event = new Activation();
+            event.start(iccid);
+            return event;
+        }
+    }
+    
+    @Name("au.com.telstra.simcardactivator.ActuatorCall")
+    @Label("Actuator Call")
+    @Description("POST to the external actuator service")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ActuatorCall extends ActivationLifecycleEvent {
+        
+        static ActuatorCall started(String iccid) {
+            ActuatorCall event = new ActuatorCall();
+            event.start(iccid);
+            return event;
+        }
+    }
+    
+    @Name("au.com.telstra.simcardactivator.DbLookup")
+    @Label("Database Lookup")
+    @Description("Lookup of previous activations of an ICCID across the storage tiers")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class DbLookup extends ActivationLifecycleEvent {
+        
+        static DbLookup started(String iccid) {
+            DbLookup event = new DbLookup();
+            event.start(iccid);
+            return event;
+        }
+    }
+    
+    @Name("au.com.telstra.simcardactivator.DbSave")
+    @Label("Database Save")
+    @Description("Insert of an activation record into the hot table")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class DbSave extends ActivationLifecycleEvent {
+        
+        static DbSave started(String iccid) {
+            DbSave event = new DbSave();
+            event.start(iccid);
+            return event;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Hand-written JSON serializers for the types written on the activation hot paths.
+ * They produce the same JSON as the default reflective serialisation, with field names
+ * pre-encoded and timestamps formatted by {@link ActivationTimestampFormatter}.
+ * When the mapper writes dates as timestamps, timestamps are left to its own serializer
+ * so the configured date features still apply.
+ * Fields added to these types must be added here as well.
+ */
+@JsonComponent
+public class ActivationJsonSerializers {
+    
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString ICCID = new SerializedString("iccid");
+    private static final SerializedString CUSTOMER_EMAIL = new SerializedString("customerEmail");
+    private static final SerializedString ACTIVE = new SerializedString("active");
+    private static final SerializedString ACTIVATION_TIMESTAMP = new SerializedString("activationTimestamp");
+    private static final SerializedString ACTUATOR_RESPONSE = new SerializedString("actuatorResponse");
+    
+    /**
+     * Serializer for activation records, writing the fields exposed by the API.
+     */
+    public static class RecordSerializer extends JsonSerializer<SimCardActivationRecord> {
+        
+        @Override
+        public void serialize(SimCardActivationRecord record, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(record);
+            gen.writeFieldName(ID);
+            if (record.getId() != null) {
+                gen.writeNumber(record.getId());
+            } else {
+                gen.writeNull();
+            }
+            gen.writeFieldName(ICCID);
+            gen.writeString(record.getIccid());
+            gen.writeFieldName(CUSTOMER_EMAIL);
+            gen.writeString(record.getCustomerEmail());
+            gen.writeFieldName(ACTIVE);
+            gen.writeBoolean(record.isActive());
+            gen.writeFieldName(ACTIVATION_TIMESTAMP);
+            if (record.getActivationTimestamp() == null) {
+                gen.writeNull();
+            } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+                provider.defaultSerializeValue(record.getActivationTimestamp(), gen);
+            } else {
+                gen.writeString(ActivationTimestampFormatter.format(record.getActivationTimestamp()));
+            }
+            gen.writeFieldName(ACTUATOR_RESPONSE);
+            gen.writeString(record.getActuatorResponse());
+            gen.writeEndObject();
+        }
+        
+        @Override
+        public Class<SimCardActivationRecord> handledType() {
+            return SimCardActivationRecord.class;
+        }
+    }
+    
+    /**
+     * Serializer for SIM card responses, also used as the activation event payload.
+     */
+    public static class SimCardResponseSerializer extends JsonSerializer<SimCardResponse> {
+        
+        @Override
+        public void serialize(SimCardResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(response);
+            gen.writeFieldName(ICCID);
+            gen.writeString(response.getIccid());
+            gen.writeFieldName(CUSTOMER_EMAIL);
+            gen.writeString(response.getCustomerEmail());
+            gen.writeFieldName(ACTIVE);
+            gen.writeBoolean(response.isActive());
+            gen.writeEndObject();
+        }
+        
+        @Override
+        public Class<SimCardResponse> handledType() {
+            return SimCardResponse.class;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Thrown when an activation cannot be attempted now because the actuator is at
+ * its concurrency limit. Nothing is recorded for the ICCID, so the request can
+ * be retried.
+ */
+public class ActivationRejectedException extends RuntimeException {
+    
+    // Constructor with parameters
+    public ActivationRejectedException(String message) {
+        super(message);
+    }
+}
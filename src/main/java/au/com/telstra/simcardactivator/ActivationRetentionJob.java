@@ -0,0 +1,181 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Scheduled job that moves monthly partitions of the activation table out of
+ * the hot table once they fall outside the retention horizon.
+ * Each partition is copied to the archive table and removed from the hot table
+ * with one set-based statement each, inside its own transaction. When the cold
+ * archive is enabled, archived partitions past the cold horizon are then written
+ * to immutable segment files and removed from the archive table.
+ * With sharded persistence every shard archives its own partitions into its own
+ * archive table. Cold segments are named by partition alone, so they are only
+ * written when there is a single shard; sharded archives stay in the archive tables.
+ */
+@Component
+@Lazy(false)
+public class ActivationRetentionJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActivationRetentionJob.class);
+    
+    @Value("${activation.retention.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.retention.hot-months:3}")
+    private int hotMonths;
+    
+    @Value("${activation.archive.cold.after-months:12}")
+    private int coldAfterMonths;
+    
+    @Autowired
+    private SimCardActivationRepository repository;
+    
+    @Autowired
+    private ArchivedSimCardActivationRepository archiveRepository;
+    
+    @Autowired
+    private ColdArchive coldArchive;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private TransactionTemplate readOnlyTransactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+    
+    /**
+     * Archives all partitions older than the configured horizon, one shard at a time.
+     */
+    @Scheduled(cron = "${activation.retention.cron:0 0 3 * * *}")
+    public void archiveExpiredPartitions() {
+        if (!enabled) {
+            return;
+        }
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            shards.onShard(shard, () -> {
+                archiveExpiredPartitionsOfShard();
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * Archives the partitions older than the configured horizon on the shard bound to the current thread.
+     */
+    private void archiveExpiredPartitionsOfShard() {
+        int horizon = monthsAgo(hotMonths);
+        List<Integer> partitions = repository.findPartitionsBefore(horizon);
+        if (partitions.isEmpty()) {
+            logger.debug("No activation partitions older than {} to archive", horizon);
+        }
+        for (Integer partition : partitions) {
+            archivePartition(partition);
+        }
+        if (coldArchive.isEnabled() && !shards.isEnabled()) {
+            for (Integer partition : archiveRepository.findPartitionsBefore(monthsAgo(coldAfterMonths))) {
+                moveToColdArchive(partition);
+            }
+        }
+    }
+    
+    /**
+     * Moves one monthly partition from the hot table to the archive table.
+     * 
+     * @param partition the partition key in yyyyMM form
+     * @return the number of rows moved
+     */
+    public int archivePartition(int partition) {
+        long started = System.nanoTime();
+        Integer moved = transactionTemplate.execute(status -> {
+            int copied = archiveRepository.archivePartition(partition);
+            int deleted = repository.deletePartition(partition);
+            if (copied != deleted) {
+                throw new IllegalStateException("Archived " + copied + " rows but removed " + deleted
+                    + " for partition " + partition);
+            }
+            return deleted;
+        });
+        logger.info("Archived activation partition {} ({} rows) in {} ms",
+            partition, moved, (System.nanoTime() - started) / 1_000_000);
+        return moved != null ? moved : 0;
+    }
+    
+    /**
+     * Writes one archived partition to a cold archive segment and removes it
+     * from the archive table. The segment is forced to disk, with its directory entry,
+     * before any row is deleted.
+     * 
+     * @param partition the partition key in yyyyMM form
+     * @return the number of rows moved
+     */
+    public long moveToColdArchive(int partition) {
+        Long segmentSize = readOnlyTransactionTemplate.execute(status -> {
+            try (Stream<ArchivedSimCardActivationRecord> rows = archiveRepository.streamPartitionOrderedByIccid(partition)) {
+                Iterator<ArchivedSimCardActivationRecord> iterator = rows.iterator();
+                return coldArchive.writeSegment(partition, new Iterator<SimCardActivationRecord>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+                    
+                    @Override
+                    public SimCardActivationRecord next() {
+                        ArchivedSimCardActivationRecord row = iterator.next();
+                        // Keep the persistence context small while streaming a whole partition
+                        entityManager.detach(row);
+                        return row.toActivationRecord();
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error writing cold archive segment for partition " + partition, e);
+            }
+        });
+        Integer deleted = transactionTemplate.execute(status -> archiveRepository.deletePartition(partition));
+        logger.info("Moved archived partition {} to cold archive ({} rows removed, {} records in segment)",
+            partition, deleted, segmentSize);
+        return deleted != null ? deleted : 0;
+    }
+    
+    /**
+     * Returns the partition key of the month the given number of months ago.
+     * 
+     * @param months the number of months to go back
+     * @return the partition key in yyyyMM form
+     */
+    private int monthsAgo(int months) {
+        YearMonth month = YearMonth.now().minusMonths(months);
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -0,0 +1,201 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Routes activation records to one of several databases by a hash of the ICCID.
+ * The shard is bound to the calling thread before a transaction or repository call,
+ * and the routing DataSource set up by {@link ShardingConfig} hands out a connection
+ * to that shard; work with no shard bound goes to shard 0, which also holds the
+ * tables that are not sharded. Queries that are not keyed by ICCID run on every
+ * shard in parallel and the caller merges the results.
+ * Record ids are allocated from a separate range per shard, so an id alone
+ * identifies its shard. When sharding is disabled there is a single shard and
+ * nothing is bound.
+ */
+@Component
+public class ActivationShards {
+    
+    // Shard n allocates record ids from n << ID_SHARD_SHIFT upwards
+    static final int ID_SHARD_SHIFT = 48;
+    
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    
+    @Value("${activation.sharding.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${activation.sharding.urls:}")
+    private String[] urls;
+    
+    @Value("${activation.sharding.query-threads:8}")
+    private int queryThreads;
+    
+    private ExecutorService queryPool;
+    
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (urls == null || urls.length == 0) {
+            throw new IllegalStateException("activation.sharding.urls must list at least one database");
+        }
+        if (urls.length > 1 << (Long.SIZE - 1 - ID_SHARD_SHIFT)) {
+            throw new IllegalStateException("Too many shards: " + urls.length);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        queryPool = Executors.newFixedThreadPool(queryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "activation-shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (queryPool != null) {
+            queryPool.shutdownNow();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int getShardCount() {
+        return enabled ? urls.length : 1;
+    }
+    
+    public List<String> getUrls() {
+        return enabled ? Collections.unmodifiableList(Arrays.asList(urls)) : Collections.emptyList();
+    }
+    
+    /**
+     * Returns the shard holding the records of an ICCID.
+     * {@link Iccids#hash} must never change, since it decides where existing records live.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return the shard index
+     */
+    public int shardFor(String iccid) {
+        if (!enabled) {
+            return 0;
+        }
+        return (int) Math.floorMod(Iccids.hash(iccid), (long) urls.length);
+    }
+    
+    /**
+     * Returns the shard that allocated a record id.
+     * 
+     * @param id the record id
+     * @return the shard index, or -1 if no shard allocates the id
+     */
+    public int shardForId(long id) {
+        long shard = id >>> ID_SHARD_SHIFT;
+        return shard < getShardCount() ? (int) shard : -1;
+    }
+    
+    /**
+     * Returns the first record id allocated by a shard.
+     * 
+     * @param shard the shard index
+     * @return the first record id
+     */
+    static long firstIdOf(int shard) {
+        return ((long) shard << ID_SHARD_SHIFT) + 1;
+    }
+    
+    /**
+     * Returns the shard bound to the current thread.
+     * 
+     * @return the shard index, or null if none is bound
+     */
+    static Integer currentShard() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Runs an action with a shard bound to the current thread.
+     * Must be called outside any transaction, since an open transaction keeps its connection.
+     * 
+     * @param shard the shard index
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+    
+    /**
+     * Runs an action on the shard holding the records of an ICCID.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public <T> T onShardFor(String iccid, Supplier<T> action) {
+        return onShard(shardFor(iccid), action);
+    }
+    
+    /**
+     * Runs an action on every shard in parallel and waits for all of them.
+     * 
+     * @param action the action to run, once per shard
+     * @return the results in shard order
+     */
+    public <T> List<T> onEveryShard(Supplier<T> action) {
+        if (!enabled) {
+            return Collections.singletonList(action.get());
+        }
+        List<Future<T>> futures = new ArrayList<>(urls.length);
+        for (int shard = 0; shard < urls.length; shard++) {
+            int target = shard;
+            futures.add(queryPool.submit(() -> onShard(target, action)));
+        }
+        List<T> results = new ArrayList<>(urls.length);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+        return results;
+    }
+}
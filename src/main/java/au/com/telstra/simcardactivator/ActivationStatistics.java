@@ -0,0 +1,313 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * In-memory aggregate of activation outcomes.
+ * Rebuilt at startup from a streaming scan of the activation table, the archive
+ * table and the cold archive segments, then updated incrementally on every save,
+ * so statistics are answered without touching the database regardless of table size.
+ * The rebuild runs while requests are already served, so it only scans records up to
+ * a per-shard ID watermark; records saved meanwhile are counted live only when they lie
+ * above it, and those saved before the watermark is taken are held until it is known.
+ * Per-range ICCID counts are not kept here; they are counted from the ICCID indexes
+ * by {@link SimCardActivationService#getActivationStatistics}.
+ * At most max-customers customers are counted individually. Once that many are tracked,
+ * customers seen for the first time are not added, the customer total becomes a lower
+ * bound and the counts of untracked customers are looked up by the service instead.
+ */
+@Component
+public class ActivationStatistics implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActivationStatistics.class);
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = 24;
+    private static final long SECONDS_PER_MINUTE = 60;
+    private static final long SECONDS_PER_HOUR = 3600;
+    
+    @Value("${activation.statistics.max-customers:100000}")
+    private int maxCustomers;
+    
+    private final LongAdder successful = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> perCustomer = new ConcurrentHashMap<>();
+    private final TimeBuckets perMinute = new TimeBuckets(MINUTE_BUCKETS, SECONDS_PER_MINUTE);
+    private final TimeBuckets perHour = new TimeBuckets(HOUR_BUCKETS, SECONDS_PER_HOUR);
+    
+    // Set once a customer could not be tracked because the map was full
+    private volatile boolean customersCapped;
+    
+    // Highest record ID per shard counted by the rebuild scan, null until taken
+    private volatile long[] watermarks;
+    
+    // Records saved before the watermarks were taken, keyed by ID, guarded by itself
+    private final Map<Long, ActivationSummary> pending = new LinkedHashMap<>();
+    
+    @Autowired
+    private SimCardActivationRepository repository;
+    
+    @Autowired
+    private ArchivedSimCardActivationRepository archiveRepository;
+    
+    @Autowired
+    private ColdArchive coldArchive;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    /**
+     * Rebuilds the aggregate from the activation table before the application reports ready,
+     * scanning all shards in parallel.
+     * 
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long count = 0;
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        List<Long> maxIds = shards.onEveryShard(repository::findMaxId);
+        long[] bounds = new long[maxIds.size()];
+        for (int shard = 0; shard < bounds.length; shard++) {
+            Long maxId = maxIds.get(shard);
+            bounds[shard] = maxId != null ? maxId : ActivationShards.firstIdOf(shard) - 1;
+        }
+        publishWatermarks(bounds);
+        for (Long shardCount : shards.onEveryShard(() -> readOnlyTransactionTemplate.execute(status -> {
+            Integer shard = ActivationShards.currentShard();
+            long shardTotal;
+            try (Stream<ActivationSummary> summaries = repository.streamSummariesUpTo(bounds[shard != null ? shard : 0])) {
+                shardTotal = recordAll(summaries);
+            }
+            try (Stream<ActivationSummary> summaries = archiveRepository.streamAllSummaries()) {
+                shardTotal += recordAll(summaries);
+            }
+            return shardTotal;
+        }))) {
+            count += shardCount;
+        }
+        LongAdder coldCount = new LongAdder();
+        coldArchive.forEach(record -> {
+            record(ActivationSummary.of(record));
+            coldCount.increment();
+        });
+        count += coldCount.sum();
+        logger.info("Rebuilt activation statistics from {} records in {} ms",
+            count, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private void publishWatermarks(long[] bounds) {
+        synchronized (pending) {
+            watermarks = bounds;
+            pending.forEach((id, summary) -> {
+                if (isAboveWatermark(bounds, id)) {
+                    record(summary);
+                }
+            });
+            pending.clear();
+        }
+    }
+    
+    private boolean isAboveWatermark(long[] bounds, long id) {
+        int shard = shards.shardForId(id);
+        return shard < 0 || shard >= bounds.length || id > bounds[shard];
+    }
+    
+    /**
+     * Records a newly saved activation record.
+     * Records at or below the rebuild watermark are skipped, since the rebuild scan counts them.
+     * 
+     * @param saved the saved activation record
+     */
+    public void recordSaved(SimCardActivationRecord saved) {
+        long[] bounds = watermarks;
+        if (bounds == null) {
+            synchronized (pending) {
+                bounds = watermarks;
+                if (bounds == null) {
+                    pending.put(saved.getId(), ActivationSummary.of(saved));
+                    return;
+                }
+            }
+        }
+        if (isAboveWatermark(bounds, saved.getId())) {
+            record(ActivationSummary.of(saved));
+        }
+    }
+    
+    /**
+     * Records the result of re-checking an activation that was recorded as failed with an unknown outcome.
+     * The record keeps its customer and timestamp, so only the success and failure totals change.
+     * 
+     * @param resolved the updated activation record
+     */
+    public void recordResolved(SimCardActivationRecord resolved) {
+        if (resolved.isActive()) {
+            failed.decrement();
+            successful.increment();
+        }
+    }
+    
+    private long recordAll(Stream<ActivationSummary> summaries) {
+        long count = 0;
+        for (ActivationSummary summary : (Iterable<ActivationSummary>) summaries::iterator) {
+            record(summary);
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Records a single activation outcome.
+     * 
+     * @param summary the activation summary
+     */
+    public void record(ActivationSummary summary) {
+        if (summary.isActive()) {
+            successful.increment();
+        } else {
+            failed.increment();
+        }
+        if (summary.getCustomerEmail() != null) {
+            String customer = CustomerEmails.normalize(summary.getCustomerEmail());
+            LongAdder customerCount = perCustomer.get(customer);
+            if (customerCount == null && perCustomer.size() < maxCustomers) {
+                customerCount = perCustomer.computeIfAbsent(customer, key -> new LongAdder());
+            }
+            if (customerCount != null) {
+                customerCount.increment();
+            } else {
+                customersCapped = true;
+            }
+        }
+        if (summary.getActivationTimestamp() != null) {
+            long epochSecond = toEpochSecond(summary.getActivationTimestamp());
+            perMinute.increment(epochSecond);
+            perHour.increment(epochSecond);
+        }
+    }
+    
+    /**
+     * Returns a snapshot of the current statistics.
+     * The per-customer count is left null when the customer is not tracked because
+     * the customer map is full.
+     * 
+     * @param customerEmail optional customer email to include a per-customer count for
+     * @return the statistics response
+     */
+    public ActivationStatisticsResponse snapshot(String customerEmail) {
+        long nowEpochSecond = Instant.now().getEpochSecond();
+        ActivationStatisticsResponse response = new ActivationStatisticsResponse();
+        long successfulCount = successful.sum();
+        long failedCount = failed.sum();
+        response.setSuccessful(successfulCount);
+        response.setFailed(failedCount);
+        response.setTotal(successfulCount + failedCount);
+        response.setCustomers(perCustomer.size());
+        if (customerEmail != null) {
+            LongAdder customerCount = perCustomer.get(CustomerEmails.normalize(customerEmail));
+            response.setCustomerEmail(customerEmail);
+            if (customerCount != null) {
+                response.setCustomerActivations(customerCount.sum());
+            } else if (!customersCapped) {
+                response.setCustomerActivations(0L);
+            }
+        }
+        response.setPerMinute(perMinute.snapshot(nowEpochSecond));
+        response.setPerHour(perHour.snapshot(nowEpochSecond));
+        return response;
+    }
+    
+    private static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+    
+    /**
+     * Fixed-size ring buffer of activation counts per time slot.
+     * Each cell packs the absolute time slot it currently holds into the upper 32 bits
+     * and that slot's count into the lower 32 bits, so resetting a cell for a new slot
+     * and incrementing it are one compare-and-set and an increment can never land in
+     * the slot that replaced the one it was meant for.
+     */
+    private static final class TimeBuckets {
+    
+        private static final long EMPTY = -1L;
+        private static final long COUNT_MASK = 0xffffffffL;
+        
+        private final int size;
+        private final long widthSeconds;
+        private final AtomicLongArray cells;
+        
+        TimeBuckets(int size, long widthSeconds) {
+            this.size = size;
+            this.widthSeconds = widthSeconds;
+            this.cells = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                cells.set(i, EMPTY);
+            }
+        }
+        
+        void increment(long epochSecond) {
+            long slot = Math.floorDiv(epochSecond, widthSeconds);
+            if (slot < 0 || slot > Integer.MAX_VALUE) {
+                return;
+            }
+            int index = (int) Math.floorMod(slot, (long) size);
+            while (true) {
+                long cell = cells.get(index);
+                long current = cell >> Integer.SIZE;
+                long next;
+                if (current == slot) {
+                    next = cell + 1;
+                } else if (current > slot) {
+                    // Older than the retained window
+                    return;
+                } else {
+                    next = (slot << Integer.SIZE) | 1;
+                }
+                if (cells.compareAndSet(index, cell, next)) {
+                    return;
+                }
+            }
+        }
+        
+        List<ActivationStatisticsResponse.Bucket> snapshot(long nowEpochSecond) {
+            long currentSlot = Math.floorDiv(nowEpochSecond, widthSeconds);
+            List<ActivationStatisticsResponse.Bucket> buckets = new ArrayList<>(size);
+            for (long slot = currentSlot - size + 1; slot <= currentSlot; slot++) {
+                int index = (int) Math.floorMod(slot, (long) size);
+                long cell = cells.get(index);
+                long count = cell >> Integer.SIZE == slot ? cell & COUNT_MASK : 0;
+                LocalDateTime start = LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(slot * widthSeconds), ZoneId.systemDefault());
+                buckets.add(new ActivationStatisticsResponse.Bucket(start, count));
+            }
+            return buckets;
+        }
+    }
+}
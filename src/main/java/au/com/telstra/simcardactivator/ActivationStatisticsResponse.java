@@ -0,0 +1,214 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ActivationStatisticsResponse {
+    
+    @JsonProperty("total")
+    private long total;
+    
+    @JsonProperty("successful")
+    private long successful;
+    
+    @JsonProperty("failed")
+    private long failed;
+    
+    @JsonProperty("customers")
+    private long customers;
+    
+    @JsonProperty("customerEmail")
+    private String customerEmail;
+    
+    @JsonProperty("customerActivations")
+    private Long customerActivations;
+    
+    @JsonProperty("iccidPrefix")
+    private String iccidPrefix;
+    
+    @JsonProperty("iccidFrom")
+    private String iccidFrom;
+    
+    @JsonProperty("iccidTo")
+    private String iccidTo;
+    
+    @JsonProperty("rangeActive")
+    private Long rangeActive;
+    
+    @JsonProperty("rangeInactive")
+    private Long rangeInactive;
+    
+    @JsonProperty("perMinute")
+    private List<Bucket> perMinute;
+    
+    @JsonProperty("perHour")
+    private List<Bucket> perHour;
+    
+    // Default constructor
+    public ActivationStatisticsResponse() {}
+    
+    // Getters and setters
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public long getSuccessful() {
+        return successful;
+    }
+    
+    public void setSuccessful(long successful) {
+        this.successful = successful;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public long getCustomers() {
+        return customers;
+    }
+    
+    public void setCustomers(long customers) {
+        this.customers = customers;
+    }
+    
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+    
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+    
+    public Long getCustomerActivations() {
+        return customerActivations;
+    }
+    
+    public void setCustomerActivations(Long customerActivations) {
+        this.customerActivations = customerActivations;
+    }
+    
+    public String getIccidPrefix() {
+        return iccidPrefix;
+    }
+    
+    public void setIccidPrefix(String iccidPrefix) {
+        this.iccidPrefix = iccidPrefix;
+    }
+    
+    public String getIccidFrom() {
+        return iccidFrom;
+    }
+    
+    public void setIccidFrom(String iccidFrom) {
+        this.iccidFrom = iccidFrom;
+    }
+    
+    public String getIccidTo() {
+        return iccidTo;
+    }
+    
+    public void setIccidTo(String iccidTo) {
+        this.iccidTo = iccidTo;
+    }
+    
+    public Long getRangeActive() {
+        return rangeActive;
+    }
+    
+    public void setRangeActive(Long rangeActive) {
+        this.rangeActive = rangeActive;
+    }
+    
+    public Long getRangeInactive() {
+        return rangeInactive;
+    }
+    
+    public void setRangeInactive(Long rangeInactive) {
+        this.rangeInactive = rangeInactive;
+    }
+    
+    public List<Bucket> getPerMinute() {
+        return perMinute;
+    }
+    
+    public void setPerMinute(List<Bucket> perMinute) {
+        this.perMinute = perMinute;
+    }
+    
+    public List<Bucket> getPerHour() {
+        return perHour;
+    }
+    
+    public void setPerHour(List<Bucket> perHour) {
+        this.perHour = perHour;
+    }
+    
+    @Override
+    public String toString() {
+        return "ActivationStatisticsResponse{" +
+                "total=" + total +
+                ", successful=" + successful +
+                ", failed=" + failed +
+                ", customers=" + customers +
+                '}';
+    }
+    
+    /**
+     * Number of activations recorded in one time bucket.
+     */
+    public static class Bucket {
+        
+        @JsonProperty("start")
+        private LocalDateTime start;
+        
+        @JsonProperty("count")
+        private long count;
+        
+        // Default constructor
+        public Bucket() {}
+        
+        // Constructor with parameters
+        public Bucket(LocalDateTime start, long count) {
+            this.start = start;
+            this.count = count;
+        }
+        
+        // Getters and setters
+        public LocalDateTime getStart() {
+            return start;
+        }
+        
+        public void setStart(LocalDateTime start) {
+            this.start = start;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public void setCount(long count) {
+            this.count = count;
+        }
+        
+        @Override
+        public String toString() {
+            return "Bucket{" +
+                    "start=" + start +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
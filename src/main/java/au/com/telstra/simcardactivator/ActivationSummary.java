@@ -0,0 +1,66 @@
+package au.com.telstra.simcardactivator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only summary of an activation record.
+ * Used to feed in-memory aggregates from a streaming table scan at startup
+ * and from each newly persisted record, without managing full entities.
+ */
+public class ActivationSummary {
+    
+    private final String iccid;
+    private final String customerEmail;
+    private final boolean active;
+    private final LocalDateTime activationTimestamp;
+    
+    // Constructor used by JPQL constructor expressions
+    public ActivationSummary(String iccid, String customerEmail, boolean active, LocalDateTime activationTimestamp) {
+        this.iccid = iccid;
+        this.customerEmail = customerEmail;
+        this.active = active;
+        this.activationTimestamp = activationTimestamp;
+    }
+    
+    /**
+     * Creates a summary from a persisted activation record.
+     * 
+     * @param record the activation record
+     * @return the summary
+     */
+    public static ActivationSummary of(SimCardActivationRecord record) {
+        return new ActivationSummary(
+            record.getIccid(),
+            record.getCustomerEmail(),
+            record.isActive(),
+            record.getActivationTimestamp()
+        );
+    }
+    
+    // Getters
+    public String getIccid() {
+        return iccid;
+    }
+    
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public LocalDateTime getActivationTimestamp() {
+        return activationTimestamp;
+    }
+    
+    @Override
+    public String toString() {
+        return "ActivationSummary{" +
+                "iccid='" + iccid + '\'' +
+                ", customerEmail='" + customerEmail + '\'' +
+                ", active=" + active +
+                ", activationTimestamp=" + activationTimestamp +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package au.com.telstra.simcardactivator;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Formats activation timestamps exactly as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} does.
+ * The date and time up to the second are formatted once per second and cached, so records
+ * activated within the same second only pay for appending the fraction. The cache is a small
+ * direct-mapped table of immutable entries, which is safe to share between threads without locking.
+ */
+public final class ActivationTimestampFormatter {
+    
+    private static final int CACHE_SIZE = 64;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+    private static final CachedSecond[] CACHE = new CachedSecond[CACHE_SIZE];
+    
+    private ActivationTimestampFormatter() {}
+    
+    /**
+     * Formats a timestamp, omitting the fraction when it is zero and trailing zeros otherwise.
+     * 
+     * @param timestamp the timestamp to format
+     * @return the formatted timestamp
+     */
+    public static String format(LocalDateTime timestamp) {
+        String prefix = formatSecond(timestamp);
+        int nano = timestamp.getNano();
+        if (nano == 0) {
+            return prefix;
+        }
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        StringBuilder builder = new StringBuilder(prefix.length() + 1 + digits).append(prefix).append('.');
+        for (int power = POWERS_OF_TEN[digits - 1]; power > nano && power > 1; power /= 10) {
+            builder.append('0');
+        }
+        return builder.append(nano).toString();
+    }
+    
+    private static String formatSecond(LocalDateTime timestamp) {
+        long second = timestamp.toEpochSecond(ZoneOffset.UTC);
+        int slot = (int) (second & (CACHE_SIZE - 1));
+        CachedSecond cached = CACHE[slot];
+        if (cached != null && cached.second == second) {
+            return cached.text;
+        }
+        String text = timestamp.truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        CACHE[slot] = new CachedSecond(second, text);
+        return text;
+    }
+    
+    private static final class CachedSecond {
+        
+        private final long second;
+        private final String text;
+        
+        private CachedSecond(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package au.com.telstra.simcardactivator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for the external actuator service.
+ * The number of calls in flight is bounded by an {@link AdaptiveConcurrencyLimiter}
+ * driven by the observed round-trip latency, so the service finds the actuator's
+ * saturation point without a hand-tuned pool size. Calls over the limit are
+ * rejected immediately rather than queued.
+ * When several actuator endpoints are configured, each call is routed by an
+ * {@link ActuatorLoadBalancer}; slow or failing endpoints are ejected passively,
+ * and a background probe takes endpoints that stop answering out of rotation
+ * until they answer again. A call that could not connect is retried once on
+ * another endpoint, since the actuator never saw it.
+ */
+@Component
+public class ActuatorClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ActuatorClient.class);
+    private static final String REJECTED_MESSAGE = "Actuator concurrency limit reached";
+    private static final String DEADLINE_MESSAGE = "Request deadline passed while waiting for the actuator";
+    
+    @Value("${actuator.service.url}")
+    private String actuatorUrl;
+    
+    @Value("${actuator.service.urls:}")
+    private String[] actuatorUrls;
+    
+    @Value("${actuator.balancer.failure-threshold:5}")
+    private int failureThreshold;
+    
+    @Value("${actuator.balancer.latency-outlier-factor:3.0}")
+    private double latencyOutlierFactor;
+    
+    @Value("${actuator.balancer.base-ejection-ms:30000}")
+    private long baseEjectionMillis;
+    
+    @Value("${actuator.balancer.max-ejection-ms:300000}")
+    private long maxEjectionMillis;
+    
+    @Value("${actuator.balancer.max-ejection-percent:50}")
+    private int maxEjectionPercent;
+    
+    @Value("${actuator.health.enabled:true}")
+    private boolean healthProbesEnabled;
+    
+    @Value("${actuator.health.interval-ms:5000}")
+    private long healthIntervalMillis;
+    
+    @Value("${actuator.health.timeout-ms:1000}")
+    private int healthTimeoutMillis;
+    
+    @Value("${actuator.limit.initial:20}")
+    private int initialLimit;
+    
+    @Value("${actuator.limit.min:1}")
+    private int minLimit;
+    
+    @Value("${actuator.limit.max:200}")
+    private int maxLimit;
+    
+    @Value("${actuator.limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+    
+    @Value("${actuator.limit.latency-tolerance:2.0}")
+    private double latencyTolerance;
+    
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private AdaptiveConcurrencyLimiter limiter;
+    
+    private ActuatorLoadBalancer balancer;
+    
+    private RestTemplate probeTemplate;
+    
+    private ScheduledExecutorService prober;
+    
+    private Counter rejectedCounter;
+    
+    private Timer latencyTimer;
+    
+    @PostConstruct
+    void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance);
+        Gauge.builder("activation.actuator.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current limit on concurrent actuator calls")
+            .register(meterRegistry);
+        Gauge.builder("activation.actuator.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Actuator calls currently in flight")
+            .register(meterRegistry);
+        rejectedCounter = Counter.builder("activation.actuator.concurrency.rejected")
+            .description("Actuator calls rejected by the concurrency limit")
+            .register(meterRegistry);
+        latencyTimer = Timer.builder("activation.actuator.latency")
+            .description("Round-trip time of actuator calls")
+            .register(meterRegistry);
+        balancer = new ActuatorLoadBalancer(endpointUrls(), failureThreshold, latencyOutlierFactor,
+            TimeUnit.MILLISECONDS.toNanos(baseEjectionMillis), TimeUnit.MILLISECONDS.toNanos(maxEjectionMillis),
+            maxEjectionPercent);
+        for (ActuatorEndpoint endpoint : balancer.getEndpoints()) {
+            Gauge.builder("activation.actuator.endpoint.outstanding", endpoint, ActuatorEndpoint::getOutstanding)
+                .description("Actuator calls in flight to one endpoint")
+                .tag("endpoint", endpoint.getUrl())
+                .register(meterRegistry);
+            Gauge.builder("activation.actuator.endpoint.available", endpoint,
+                    e -> e.isAvailable(System.nanoTime()) ? 1 : 0)
+                .description("Whether an actuator endpoint is in rotation")
+                .tag("endpoint", endpoint.getUrl())
+                .register(meterRegistry);
+            FunctionCounter.builder("activation.actuator.endpoint.ejections", endpoint, ActuatorEndpoint::getEjectionCount)
+                .description("Times an actuator endpoint was ejected for errors or latency")
+                .tag("endpoint", endpoint.getUrl())
+                .register(meterRegistry);
+        }
+        if (healthProbesEnabled) {
+            SimpleClientHttpRequestFactory probeFactory = new SimpleClientHttpRequestFactory();
+            probeFactory.setConnectTimeout(healthTimeoutMillis);
+            probeFactory.setReadTimeout(healthTimeoutMillis);
+            probeTemplate = new RestTemplate(probeFactory);
+            prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "actuator-health-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prober.scheduleWithFixedDelay(this::probeEndpoints, healthIntervalMillis, healthIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+    
+    private List<String> endpointUrls() {
+        List<String> urls = new ArrayList<>();
+        if (actuatorUrls != null) {
+            for (String url : actuatorUrls) {
+                if (!url.isBlank()) {
+                    urls.add(url.trim());
+                }
+            }
+        }
+        if (urls.isEmpty()) {
+            urls.add(actuatorUrl);
+        }
+        return urls;
+    }
+    
+    /**
+     * Sends an activation request to the actuator service.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return the actuator response
+     * @throws ActivationRejectedException if the concurrency limit is reached
+     * @throws DeadlineExceededException if the request deadline passed while waiting for the actuator
+     */
+    public ResponseEntity<ActuatorResponse> activate(String iccid) {
+        String stubUrl = WarmupScope.stubActuatorUrl();
+        if (stubUrl != null) {
+            // Warm-up latency says nothing about the real actuator, so it is not sampled
+            return restTemplate.postForEntity(stubUrl, createHttpEntity(new ActuatorRequest(iccid)), ActuatorResponse.class);
+        }
+        if (!limiter.tryAcquire()) {
+            rejectedCounter.increment();
+            logger.warn("Rejecting actuator call for ICCID {}: {} calls in flight", iccid, limiter.getInFlight());
+            throw new ActivationRejectedException(REJECTED_MESSAGE);
+        }
+        long started = System.nanoTime();
+        boolean dropped = false;
+        boolean sampled = true;
+        try {
+            return sendWithFailover(iccid);
+        } catch (ResourceAccessException e) {
+            boolean timedOut = e.getCause() instanceof SocketTimeoutException;
+            if (timedOut && RequestDeadline.isExpired()) {
+                // Cut short by the caller's deadline, which says nothing about actuator capacity
+                sampled = false;
+                throw new DeadlineExceededException(DEADLINE_MESSAGE);
+            }
+            // Timeouts signal overload; refused connections say nothing about capacity
+            dropped = timedOut;
+            sampled = dropped;
+            throw e;
+        } catch (HttpServerErrorException e) {
+            dropped = true;
+            throw e;
+        } catch (HttpStatusCodeException e) {
+            dropped = e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+            throw e;
+        } finally {
+            long rttNanos = System.nanoTime() - started;
+            if (sampled) {
+                latencyTimer.record(rttNanos, TimeUnit.NANOSECONDS);
+                limiter.release(rttNanos, dropped);
+            } else {
+                limiter.releaseWithoutSample();
+            }
+        }
+    }
+    
+    private ResponseEntity<ActuatorResponse> sendWithFailover(String iccid) {
+        ActuatorEndpoint endpoint = balancer.choose(System.nanoTime());
+        try {
+            return send(endpoint, iccid);
+        } catch (ResourceAccessException e) {
+            if (!(e.getCause() instanceof ConnectException)) {
+                throw e;
+            }
+            ActuatorEndpoint alternative = balancer.chooseOther(endpoint, System.nanoTime());
+            if (alternative == null) {
+                throw e;
+            }
+            logger.warn("Actuator endpoint {} refused the connection, retrying ICCID {} on {}", endpoint, iccid, alternative);
+            return send(alternative, iccid);
+        }
+    }
+    
+    /**
+     * Sends one activation request to one endpoint and reports the outcome to the balancer.
+     * 
+     * @param endpoint the endpoint to call
+     * @param iccid the SIM card ICCID
+     * @return the actuator response
+     */
+    private ResponseEntity<ActuatorResponse> send(ActuatorEndpoint endpoint, String iccid) {
+        long started = System.nanoTime();
+        endpoint.begin();
+        try {
+            logger.debug("Calling actuator service at: {}", endpoint.getUrl());
+            ResponseEntity<ActuatorResponse> response = restTemplate.postForEntity(endpoint.getUrl(),
+                createHttpEntity(new ActuatorRequest(iccid)), ActuatorResponse.class);
+            long now = System.nanoTime();
+            balancer.recordSuccess(endpoint, now - started, now);
+            return response;
+        } catch (ResourceAccessException e) {
+            // A timeout forced by the caller's deadline is not the endpoint's fault
+            if (!(e.getCause() instanceof SocketTimeoutException && RequestDeadline.isExpired())) {
+                balancer.recordFailure(endpoint, System.nanoTime());
+            }
+            throw e;
+        } catch (HttpServerErrorException e) {
+            balancer.recordFailure(endpoint, System.nanoTime());
+            throw e;
+        } catch (HttpStatusCodeException e) {
+            // Other client errors are about the request, not the endpoint
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                balancer.recordFailure(endpoint, System.nanoTime());
+            }
+            throw e;
+        } finally {
+            endpoint.end();
+        }
+    }
+    
+    /**
+     * Probes every endpoint and takes those that do not answer out of rotation.
+     */
+    private void probeEndpoints() {
+        for (ActuatorEndpoint endpoint : balancer.getEndpoints()) {
+            boolean healthy = answers(probeTemplate, endpoint.getUrl());
+            if (healthy != endpoint.isProbeHealthy()) {
+                logger.warn("Actuator endpoint {} is {}", endpoint, healthy ? "answering again" : "not answering health probes");
+            }
+            balancer.recordProbe(endpoint, healthy);
+        }
+    }
+    
+    /**
+     * Opens a connection to every actuator endpoint without activating anything, so the
+     * first activations do not pay for name resolution and connection setup.
+     * Any HTTP response, including an error status, leaves a reusable connection behind.
+     * 
+     * @return true if at least one actuator endpoint answered
+     */
+    public boolean warmUp() {
+        boolean answered = false;
+        for (ActuatorEndpoint endpoint : balancer.getEndpoints()) {
+            answered |= answers(restTemplate, endpoint.getUrl());
+        }
+        return answered;
+    }
+    
+    private static boolean answers(RestTemplate template, String url) {
+        try {
+            template.headForHeaders(url);
+            return true;
+        } catch (HttpStatusCodeException e) {
+            return true;
+        } catch (RestClientException e) {
+            logger.debug("Actuator endpoint {} not reachable: {}", url, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Creates an HTTP entity with proper headers for the actuator request.
+     * 
+     * @param actuatorRequest the request object
+     * @return the HTTP entity
+     */
+    private HttpEntity<ActuatorRequest> createHttpEntity(ActuatorRequest actuatorRequest) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(actuatorRequest, headers);
+    }
+    
+    public int getConcurrencyLimit() {
+        return limiter.getLimit();
+    }
+    
+    public List<ActuatorEndpoint> getEndpoints() {
+        return balancer.getEndpoints();
+    }
+}
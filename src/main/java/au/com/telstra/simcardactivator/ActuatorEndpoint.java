@@ -0,0 +1,141 @@
+package au.com.telstra.simcardactivator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One actuator node with the state used to balance requests across nodes:
+ * requests in flight, a moving average of its latency, consecutive failures,
+ * passive ejection and the result of the last active health probe.
+ */
+public final class ActuatorEndpoint {
+    
+    private static final double LATENCY_WEIGHT = 0.2;
+    
+    private final String url;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    
+    private volatile double latencyNanos;
+    private volatile long latencySamples;
+    private volatile boolean probeHealthy = true;
+    private volatile boolean ejected;
+    private volatile long ejectedUntilNanos;
+    private volatile long ejectionCount;
+    private int consecutiveFailures;
+    
+    // Constructor with parameters
+    public ActuatorEndpoint(String url) {
+        this.url = url;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+    
+    void end() {
+        outstanding.decrementAndGet();
+    }
+    
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+    
+    public double getLatencyNanos() {
+        return latencyNanos;
+    }
+    
+    public long getLatencySamples() {
+        return latencySamples;
+    }
+    
+    public long getEjectionCount() {
+        return ejectionCount;
+    }
+    
+    public boolean isProbeHealthy() {
+        return probeHealthy;
+    }
+    
+    void setProbeHealthy(boolean probeHealthy) {
+        this.probeHealthy = probeHealthy;
+    }
+    
+    /**
+     * Checks whether the endpoint is currently ejected.
+     * 
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return true while an ejection is in force
+     */
+    public boolean isEjected(long nowNanos) {
+        return ejected && nowNanos - ejectedUntilNanos < 0;
+    }
+    
+    /**
+     * Checks whether the endpoint may receive requests.
+     * 
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return true if the endpoint passed its last probe and is not ejected
+     */
+    public boolean isAvailable(long nowNanos) {
+        return probeHealthy && !isEjected(nowNanos);
+    }
+    
+    /**
+     * Records a successful call.
+     * 
+     * @param rttNanos the round-trip time of the call
+     * @param nowNanos the current {@link System#nanoTime()}
+     */
+    synchronized void recordSuccess(long rttNanos, long nowNanos) {
+        readmitIfDue(nowNanos);
+        consecutiveFailures = 0;
+        latencyNanos = latencySamples == 0 ? rttNanos : latencyNanos + LATENCY_WEIGHT * (rttNanos - latencyNanos);
+        latencySamples++;
+    }
+    
+    /**
+     * Records a failed call.
+     * 
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the number of consecutive failures, including this one
+     */
+    synchronized int recordFailure(long nowNanos) {
+        readmitIfDue(nowNanos);
+        return ++consecutiveFailures;
+    }
+    
+    /**
+     * Ejects the endpoint for a duration that doubles with each ejection.
+     * 
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @param baseNanos the duration of the first ejection
+     * @param maxNanos the longest ejection
+     */
+    synchronized void eject(long nowNanos, long baseNanos, long maxNanos) {
+        long multiplier = 1L << Math.min(ejectionCount, 10);
+        ejectedUntilNanos = nowNanos + Math.min(maxNanos, baseNanos * multiplier);
+        ejected = true;
+        ejectionCount++;
+    }
+    
+    /**
+     * Clears the statistics gathered before an expired ejection, so the endpoint
+     * is judged afresh and not ejected again on stale latency.
+     */
+    private void readmitIfDue(long nowNanos) {
+        if (ejected && nowNanos - ejectedUntilNanos >= 0) {
+            ejected = false;
+            consecutiveFailures = 0;
+            latencyNanos = 0;
+            latencySamples = 0;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return url;
+    }
+}
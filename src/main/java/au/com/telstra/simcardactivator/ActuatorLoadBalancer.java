@@ -0,0 +1,190 @@
+package au.com.telstra.simcardactivator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads actuator calls over several endpoints.
+ * Each call goes to the less loaded of two randomly chosen available endpoints
+ * (power of two choices on outstanding requests, ties broken by latency), which
+ * avoids both herding onto one node and the cost of scanning every node.
+ * Endpoints are ejected passively after consecutive failures, or when their
+ * average latency is an outlier against the other endpoints, and come back once
+ * the ejection expires. No more than the configured share of endpoints is ejected
+ * at once, and when nothing is available the call fails open to any endpoint.
+ */
+public class ActuatorLoadBalancer {
+    
+    private static final long MIN_LATENCY_SAMPLES = 20;
+    
+    private final List<ActuatorEndpoint> endpoints;
+    private final int failureThreshold;
+    private final double latencyOutlierFactor;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjected;
+    
+    /**
+     * Creates a balancer over the given endpoints.
+     * 
+     * @param urls the endpoint URLs
+     * @param failureThreshold consecutive failures that eject an endpoint
+     * @param latencyOutlierFactor how many times the median latency of the other endpoints ejects an endpoint
+     * @param baseEjectionNanos the duration of a first ejection
+     * @param maxEjectionNanos the longest ejection
+     * @param maxEjectionPercent the largest share of endpoints ejected at the same time
+     */
+    public ActuatorLoadBalancer(List<String> urls, int failureThreshold, double latencyOutlierFactor,
+                                long baseEjectionNanos, long maxEjectionNanos, int maxEjectionPercent) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one actuator endpoint is required");
+        }
+        List<ActuatorEndpoint> created = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            created.add(new ActuatorEndpoint(url));
+        }
+        this.endpoints = Collections.unmodifiableList(created);
+        this.failureThreshold = failureThreshold;
+        this.latencyOutlierFactor = latencyOutlierFactor;
+        this.baseEjectionNanos = baseEjectionNanos;
+        this.maxEjectionNanos = maxEjectionNanos;
+        this.maxEjected = urls.size() * maxEjectionPercent / 100;
+    }
+    
+    public List<ActuatorEndpoint> getEndpoints() {
+        return endpoints;
+    }
+    
+    /**
+     * Chooses the endpoint for the next call.
+     * 
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the chosen endpoint
+     */
+    public ActuatorEndpoint choose(long nowNanos) {
+        return choose(nowNanos, null);
+    }
+    
+    /**
+     * Chooses an endpoint other than the given one, for a call that could not reach it.
+     * 
+     * @param excluded the endpoint to avoid
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return another available endpoint, or null if there is none
+     */
+    public ActuatorEndpoint chooseOther(ActuatorEndpoint excluded, long nowNanos) {
+        ActuatorEndpoint chosen = choose(nowNanos, excluded);
+        return chosen == excluded || !chosen.isAvailable(nowNanos) ? null : chosen;
+    }
+    
+    private ActuatorEndpoint choose(long nowNanos, ActuatorEndpoint excluded) {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        List<ActuatorEndpoint> candidates = new ArrayList<>(endpoints.size());
+        for (ActuatorEndpoint endpoint : endpoints) {
+            if (endpoint != excluded && endpoint.isAvailable(nowNanos)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Fail open: a possibly unhealthy endpoint beats rejecting every activation
+            for (ActuatorEndpoint endpoint : endpoints) {
+                if (endpoint != excluded) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        return lessLoaded(candidates.get(first), candidates.get(second));
+    }
+    
+    private static ActuatorEndpoint lessLoaded(ActuatorEndpoint a, ActuatorEndpoint b) {
+        int outstandingA = a.getOutstanding();
+        int outstandingB = b.getOutstanding();
+        if (outstandingA != outstandingB) {
+            return outstandingA < outstandingB ? a : b;
+        }
+        return a.getLatencyNanos() <= b.getLatencyNanos() ? a : b;
+    }
+    
+    /**
+     * Records a successful call and ejects the endpoint if its latency has become an outlier.
+     * 
+     * @param endpoint the endpoint called
+     * @param rttNanos the round-trip time of the call
+     * @param nowNanos the current {@link System#nanoTime()}
+     */
+    public void recordSuccess(ActuatorEndpoint endpoint, long rttNanos, long nowNanos) {
+        endpoint.recordSuccess(rttNanos, nowNanos);
+        if (endpoint.getLatencySamples() >= MIN_LATENCY_SAMPLES) {
+            double median = medianLatencyOfOthers(endpoint);
+            if (median > 0 && endpoint.getLatencyNanos() > median * latencyOutlierFactor) {
+                tryEject(endpoint, nowNanos);
+            }
+        }
+    }
+    
+    /**
+     * Records a failed call and ejects the endpoint after too many consecutive failures.
+     * 
+     * @param endpoint the endpoint called
+     * @param nowNanos the current {@link System#nanoTime()}
+     */
+    public void recordFailure(ActuatorEndpoint endpoint, long nowNanos) {
+        if (endpoint.recordFailure(nowNanos) >= failureThreshold) {
+            tryEject(endpoint, nowNanos);
+        }
+    }
+    
+    /**
+     * Records the result of an active health probe.
+     * 
+     * @param endpoint the endpoint probed
+     * @param healthy whether the endpoint answered
+     */
+    public void recordProbe(ActuatorEndpoint endpoint, boolean healthy) {
+        endpoint.setProbeHealthy(healthy);
+    }
+    
+    private synchronized void tryEject(ActuatorEndpoint endpoint, long nowNanos) {
+        if (endpoint.isEjected(nowNanos)) {
+            return;
+        }
+        int ejected = 0;
+        for (ActuatorEndpoint other : endpoints) {
+            if (other.isEjected(nowNanos)) {
+                ejected++;
+            }
+        }
+        if (ejected < maxEjected) {
+            endpoint.eject(nowNanos, baseEjectionNanos, maxEjectionNanos);
+        }
+    }
+    
+    private double medianLatencyOfOthers(ActuatorEndpoint endpoint) {
+        double[] latencies = new double[endpoints.size()];
+        int count = 0;
+        for (ActuatorEndpoint other : endpoints) {
+            if (other != endpoint && other.getLatencySamples() > 0) {
+                latencies[count++] = other.getLatencyNanos();
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(latencies, 0, count);
+        return count % 2 == 1 ? latencies[count / 2] : (latencies[count / 2 - 1] + latencies[count / 2]) / 2;
+    }
+}
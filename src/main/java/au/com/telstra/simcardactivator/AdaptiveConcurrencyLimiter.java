@@ -0,0 +1,123 @@
+package au.com.telstra.simcardactivator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limiter whose limit adapts to the round-trip latency of the calls it admits.
+ * The limit grows additively while latency stays close to the no-load baseline and the
+ * limit is actually being used, and shrinks multiplicatively when latency rises above
+ * the baseline by the tolerance factor or a call fails with an overload signal. This
+ * settles the limit near the point where the downstream service starts queueing, and
+ * follows that point as its capacity changes.
+ * The baseline is the minimum observed latency, drifting slowly towards recent samples
+ * so that it recovers after the downstream service gets permanently slower.
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    // Fraction of the gap to a slower sample the baseline moves per sample
+    private static final double BASELINE_DRIFT = 0.001;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    
+    private volatile double limit;
+    private double baselineRttNanos;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+    
+    // Constructor with parameters
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || backoffRatio <= 0 || backoffRatio >= 1 || tolerance < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limiter settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    /**
+     * Admits a call if fewer than the current limit are in flight.
+     * Every admitted call must be followed by exactly one {@link #release}.
+     * 
+     * @return true if the call may proceed, false if it is rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Releases an admitted call without using it as a sample, for failures that say
+     * nothing about load, such as the downstream service refusing connections.
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+    
+    /**
+     * Releases an admitted call and adjusts the limit from its outcome.
+     * 
+     * @param rttNanos the round-trip time of the call
+     * @param dropped true if the call failed in a way that signals overload
+     */
+    public void release(long rttNanos, boolean dropped) {
+        release(rttNanos, dropped, System.nanoTime());
+    }
+    
+    synchronized void release(long rttNanos, boolean dropped, long nowNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        if (dropped) {
+            decrease(nowNanos);
+            return;
+        }
+        if (baselineRttNanos == 0 || rttNanos < baselineRttNanos) {
+            baselineRttNanos = rttNanos;
+        } else {
+            baselineRttNanos += (rttNanos - baselineRttNanos) * BASELINE_DRIFT;
+        }
+        if (rttNanos > baselineRttNanos * tolerance) {
+            decrease(nowNanos);
+        } else if (concurrent * 2 >= limit) {
+            // Only grow while at least half of the limit is in use, so idle periods do not inflate it
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+    
+    // Decrease at most once per baseline round trip, so one burst of slow calls backs off once
+    private void decrease(long nowNanos) {
+        if (decreased && nowNanos - lastDecreaseNanos < (long) baselineRttNanos) {
+            return;
+        }
+        decreased = true;
+        lastDecreaseNanos = nowNanos;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,150 @@
+package au.com.telstra.simcardactivator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Activation record that has aged out of the hot table.
+ * Rows are moved here a whole monthly partition at a time by the retention job
+ * and keep the identifier and version they had in the hot table.
+ */
+@Entity
+@Table(name = "sim_card_activation_archive",
+       indexes = {
+           @Index(name = "idx_archive_iccid", columnList = "iccid"),
+           @Index(name = "idx_archive_month", columnList = "activation_month"),
+           @Index(name = "idx_archive_email_hash", columnList = "customer_email_hash")
+       })
+public class ArchivedSimCardActivationRecord {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "iccid", nullable = false, length = 50)
+    private String iccid;
+    
+    @Column(name = "customer_email", nullable = false, length = 255)
+    private String customerEmail;
+    
+    @Column(name = "customer_email_hash")
+    private Long customerEmailHash;
+    
+    @Column(name = "active", nullable = false)
+    private boolean active;
+    
+    @Column(name = "activation_timestamp", nullable = false)
+    private LocalDateTime activationTimestamp;
+    
+    @Column(name = "actuator_response", length = 1000)
+    private String actuatorResponse;
+    
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
+    @Column(name = "activation_month", nullable = false)
+    private int activationMonth;
+    
+    // Default constructor
+    public ArchivedSimCardActivationRecord() {}
+    
+    /**
+     * Converts the archived row back into the activation record shape used by the API.
+     * The returned record is detached and must not be saved.
+     * 
+     * @return the activation record
+     */
+    public SimCardActivationRecord toActivationRecord() {
+        SimCardActivationRecord record = new SimCardActivationRecord(iccid, customerEmail, active);
+        record.setId(id);
+        record.setActivationTimestamp(activationTimestamp);
+        record.setActuatorResponse(actuatorResponse);
+        record.setVersion(version);
+        record.setCustomerEmailHash(customerEmailHash);
+        return record;
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getIccid() {
+        return iccid;
+    }
+    
+    public void setIccid(String iccid) {
+        this.iccid = iccid;
+    }
+    
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+    
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+    
+    public Long getCustomerEmailHash() {
+        return customerEmailHash;
+    }
+    
+    public void setCustomerEmailHash(Long customerEmailHash) {
+        this.customerEmailHash = customerEmailHash;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDateTime getActivationTimestamp() {
+        return activationTimestamp;
+    }
+    
+    public void setActivationTimestamp(LocalDateTime activationTimestamp) {
+        this.activationTimestamp = activationTimestamp;
+    }
+    
+    public String getActuatorResponse() {
+        return actuatorResponse;
+    }
+    
+    public void setActuatorResponse(String actuatorResponse) {
+        this.actuatorResponse = actuatorResponse;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public int getActivationMonth() {
+        return activationMonth;
+    }
+    
+    public void setActivationMonth(int activationMonth) {
+        this.activationMonth = activationMonth;
+    }
+    
+    @Override
+    public String toString() {
+        return "ArchivedSimCardActivationRecord{" +
+                "id=" + id +
+                ", iccid='" + iccid + '\'' +
+                ", customerEmail='" + customerEmail + '\'' +
+                ", active=" + active +
+                ", activationTimestamp=" + activationTimestamp +
+                ", activationMonth=" + activationMonth +
+                '}';
+    }
+}
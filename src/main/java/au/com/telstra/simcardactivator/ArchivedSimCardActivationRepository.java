@@ -0,0 +1,120 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedSimCardActivationRepository extends JpaRepository<ArchivedSimCardActivationRecord, Long> {
+    
+    /**
+     * Find archived activation record by ICCID
+     */
+    Optional<ArchivedSimCardActivationRecord> findFirstByIccidOrderByActivationTimestampDesc(String iccid);
+    
+    /**
+     * Check if ICCID exists in the archive
+     */
+    boolean existsByIccid(String iccid);
+    
+    /**
+     * Find archived activation records since a timestamp, restricted to the partitions that can contain them
+     */
+    @Query("select r from ArchivedSimCardActivationRecord r "
+         + "where r.activationMonth >= :month and r.activationTimestamp >= :since")
+    List<ArchivedSimCardActivationRecord> findActivatedSince(@Param("month") int month, @Param("since") LocalDateTime since);
+    
+    /**
+     * Count the distinct archived ICCIDs in [from, toExclusive), served from the ICCID index
+     */
+    @Query("select count(distinct r.iccid) from ArchivedSimCardActivationRecord r "
+         + "where r.iccid >= :from and r.iccid < :toExclusive")
+    long countIccidsInRange(@Param("from") String from, @Param("toExclusive") String toExclusive);
+    
+    /**
+     * Count the distinct archived ICCIDs in [from, toExclusive) with a successful activation
+     */
+    @Query("select count(distinct r.iccid) from ArchivedSimCardActivationRecord r "
+         + "where r.iccid >= :from and r.iccid < :toExclusive and r.active = true")
+    long countActiveIccidsInRange(@Param("from") String from, @Param("toExclusive") String toExclusive);
+    
+    /**
+     * Find archived activation records whose normalised customer email has the given hash
+     */
+    List<ArchivedSimCardActivationRecord> findByCustomerEmailHash(Long customerEmailHash);
+    
+    /**
+     * Find up to one batch of archived records still missing the customer email hash
+     */
+    @Query("select r.id as id, r.customerEmail as customerEmail from ArchivedSimCardActivationRecord r "
+         + "where r.customerEmailHash is null")
+    List<CustomerEmailRow> findRowsWithoutEmailHash(Pageable pageable);
+    
+    /**
+     * Set the customer email hash of one archived record
+     */
+    @Modifying
+    @Query("update ArchivedSimCardActivationRecord r set r.customerEmailHash = :hash where r.id = :id")
+    int updateEmailHash(@Param("id") Long id, @Param("hash") Long hash);
+    
+    /**
+     * Copy one monthly partition of the hot table into the archive with a single set-based statement
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sim_card_activation_archive "
+                 + "(id, iccid, customer_email, customer_email_hash, active, activation_timestamp, actuator_response, version, activation_month) "
+                 + "SELECT id, iccid, customer_email, customer_email_hash, active, activation_timestamp, actuator_response, version, activation_month "
+                 + "FROM sim_card_activation_records WHERE activation_month = :month",
+           nativeQuery = true)
+    int archivePartition(@Param("month") int month);
+    
+    /**
+     * Stream the ICCIDs of all archived records, used to build the in-memory set of known ICCIDs.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select r.iccid from ArchivedSimCardActivationRecord r")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<String> streamAllIccids();
+    
+    /**
+     * Stream summaries of all archived records, used to rebuild in-memory aggregates.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select new au.com.telstra.simcardactivator.ActivationSummary("
+         + "r.iccid, r.customerEmail, r.active, r.activationTimestamp) "
+         + "from ArchivedSimCardActivationRecord r")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ActivationSummary> streamAllSummaries();
+    
+    /**
+     * Find the archived monthly partitions older than the given partition key
+     */
+    @Query("select distinct r.activationMonth from ArchivedSimCardActivationRecord r "
+         + "where r.activationMonth < :month order by r.activationMonth")
+    List<Integer> findPartitionsBefore(@Param("month") int month);
+    
+    /**
+     * Stream one archived partition sorted by ICCID, used to write cold archive segments.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select r from ArchivedSimCardActivationRecord r where r.activationMonth = :month order by r.iccid")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ArchivedSimCardActivationRecord> streamPartitionOrderedByIccid(@Param("month") int month);
+    
+    /**
+     * Remove a whole archived partition with a single bulk statement
+     */
+    @Modifying
+    @Query("delete from ArchivedSimCardActivationRecord r where r.activationMonth = :month")
+    int deletePartition(@Param("month") int month);
+}
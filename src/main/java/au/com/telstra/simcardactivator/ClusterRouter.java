@@ -0,0 +1,240 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Routes activations to the cluster node that owns the ICCID.
+ * Ownership comes from a consistent-hash ring over a static peer list, so each
+ * ICCID is processed by one node and per-ICCID coalescing and caching hold
+ * cluster-wide without a shared lock service. Forwarding uses one shared HTTP
+ * client whose keep-alive connections are pooled per peer.
+ * A forwarded request carries the sending peer and an HMAC of the peer and ICCID
+ * under the shared cluster secret; the forwarded marker is ignored unless the
+ * signature verifies, so clients cannot make a node skip routing.
+ * Activations that do not arrive as HTTP requests, import rows and scheduled
+ * releases, are routed to the owner as well.
+ */
+@Component
+public class ClusterRouter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRouter.class);
+    static final String FORWARDED_HEADER = "X-Activator-Forwarded-By";
+    static final String SIGNATURE_HEADER = "X-Activator-Forward-Signature";
+    static final String NODE_HEADER = "X-Activator-Node";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String OWNER_TIMEOUT_MESSAGE = "Owning node did not answer in time, retry later";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String ACTIVATE_PATH = "/api/activate";
+    
+    @Value("${activation.cluster.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${activation.cluster.self:}")
+    private String self;
+    
+    @Value("${activation.cluster.peers:}")
+    private String peers;
+    
+    @Value("${activation.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+    
+    @Value("${activation.cluster.forward-timeout-ms:10000}")
+    private long forwardTimeoutMillis;
+    
+    @Value("${activation.cluster.secret:}")
+    private String secret;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private ConsistentHashRing ring;
+    
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> nodes = Arrays.stream(peers.split(","))
+            .map(String::trim)
+            .filter(peer -> !peer.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (self.isEmpty() || !nodes.contains(self)) {
+            throw new IllegalStateException("activation.cluster.self must be one of activation.cluster.peers");
+        }
+        if (secret.isEmpty()) {
+            throw new IllegalStateException("activation.cluster.secret is required to authenticate forwarded requests");
+        }
+        ring = new ConsistentHashRing(nodes, virtualNodes);
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(forwardTimeoutMillis))
+            .build();
+        logger.info("Cluster mode enabled as {} with peers {}", self, ring.getNodes());
+    }
+    
+    /**
+     * Determines the node a request should be forwarded to.
+     * Requests forwarded by a peer are handled locally when their signature verifies;
+     * an unsigned or forged forwarded marker is ignored and the request is routed as usual.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param forwardedBy the forwarding peer header, if present
+     * @param signature the forward signature header, if present
+     * @return the owning peer, or null if the request should be handled locally
+     */
+    public String forwardTarget(String iccid, String forwardedBy, String signature) {
+        if (!enabled) {
+            return null;
+        }
+        if (forwardedBy != null) {
+            if (isSignedByPeer(iccid, forwardedBy, signature)) {
+                return null;
+            }
+            logger.warn("Ignoring unauthenticated {} header for ICCID {}", FORWARDED_HEADER, iccid);
+        }
+        String owner = ring.ownerOf(iccid);
+        return owner.equals(self) ? null : owner;
+    }
+    
+    private boolean isSignedByPeer(String iccid, String forwardedBy, String signature) {
+        if (signature == null || forwardedBy.equals(self) || !ring.getNodes().contains(forwardedBy)) {
+            return false;
+        }
+        byte[] expected = sign(forwardedBy, iccid).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Computes the signature of a forwarded request: an HMAC of the sending peer and the ICCID.
+     */
+    private String sign(String peer, String iccid) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] digest = mac.doFinal((peer + "\n" + iccid).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign forwarded request", e);
+        }
+    }
+    
+    /**
+     * Forwards an activation request to its owning peer.
+     * The remaining request deadline is passed on and bounds the forwarding timeout.
+     * Only a failure to connect means the owner never saw the request, so only then may
+     * the caller activate locally. Once the request may have been sent, a timeout or broken
+     * connection is answered with 503, since the owner may still be activating the ICCID.
+     * 
+     * @param owner the owning peer base URL
+     * @param request the activation request
+     * @param idempotencyKey the Idempotency-Key header to pass on, if present
+     * @return the owner's response or a 503, or null if the owner could not be connected to
+     */
+    public ResponseEntity<String> forward(String owner, SimCardActivationRequest request, String idempotencyKey) {
+        try {
+            HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(owner + ACTIVATE_PATH))
+                .timeout(Duration.ofMillis(RequestDeadline.boundTimeout((int) forwardTimeoutMillis)))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(FORWARDED_HEADER, self)
+                .header(SIGNATURE_HEADER, sign(self, request.getIccid()))
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)));
+            if (idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
+                forwarded.header(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+            }
+            if (RequestDeadline.isSet()) {
+                // The owner works to the same deadline, less the time already spent here
+                forwarded.header(RequestDeadline.TIMEOUT_HEADER, String.valueOf(Math.max(0, RequestDeadline.remainingMillis())));
+            }
+            HttpResponse<String> response = httpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofString());
+            logger.debug("Forwarded activation for ICCID {} to {}: {}", request.getIccid(), owner, response.statusCode());
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode())
+                .header(NODE_HEADER, owner);
+            response.headers().firstValue(IdempotencyStore.REPLAYED_HEADER)
+                .ifPresent(replayed -> builder.header(IdempotencyStore.REPLAYED_HEADER, replayed));
+            return builder.body(response.body());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialise activation request", e);
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            logger.warn("Could not connect to {} to forward activation for ICCID {}: {}", owner, request.getIccid(), e.getMessage());
+            return null;
+        } catch (IOException e) {
+            logger.warn("Forwarded activation for ICCID {} to {} failed: {}", request.getIccid(), owner, e.toString());
+            return ownerUnavailable(owner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ownerUnavailable(owner);
+        }
+    }
+    
+    /**
+     * Activates an ICCID on its owning node, for activations started by this node
+     * itself rather than by an HTTP request: import rows and scheduled releases.
+     * The result is read from the owner's response. As with forwarded requests, the
+     * caller activates locally only when the owner could not be connected to.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param customerEmail the customer email address
+     * @return the owner's activation result, or null if this node should activate the ICCID
+     * @throws ActivationRejectedException if the owner was busy or did not answer in time
+     * @throws IllegalStateException if the owner answered with an error
+     */
+    public Boolean activateOnOwner(String iccid, String customerEmail) {
+        String owner = forwardTarget(iccid, null, null);
+        if (owner == null) {
+            return null;
+        }
+        ResponseEntity<String> response = forward(owner, new SimCardActivationRequest(iccid, customerEmail), null);
+        if (response == null) {
+            logger.warn("Owner {} unreachable, activating ICCID {} locally", owner, iccid);
+            return null;
+        }
+        if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            throw new ActivationRejectedException("Owner " + owner + " unavailable: " + response.getBody());
+        }
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new IllegalStateException("Owner " + owner + " answered " + response.getStatusCodeValue()
+                + ": " + response.getBody());
+        }
+        return String.format(SimCardActivationController.ACTIVATION_RESULT_FORMAT,
+            SimCardActivationController.SUCCESS_MESSAGE, iccid).equals(response.getBody());
+    }
+    
+    private static ResponseEntity<String> ownerUnavailable(String owner) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(NODE_HEADER, owner)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(OWNER_TIMEOUT_MESSAGE);
+    }
+}
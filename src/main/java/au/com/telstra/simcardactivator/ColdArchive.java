@@ -0,0 +1,242 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cold tier of the activation history.
+ * Holds the memory-mapped segment files written by the retention job and
+ * answers ICCID lookups that miss both the hot table and the archive table.
+ */
+@Component
+public class ColdArchive {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ColdArchive.class);
+    private static final String SEGMENT_PREFIX = "activations-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    
+    @Value("${activation.archive.cold.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${activation.archive.cold.directory:./data/cold-archive}")
+    private String directory;
+    
+    // Newest segments first, so recent history is searched before older history
+    private final List<ColdArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    
+    @PostConstruct
+    void openSegments() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(directory);
+        Files.createDirectories(root);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort((left, right) -> right.getFileName().toString().compareTo(left.getFileName().toString()));
+        for (Path file : files) {
+            segments.add(ColdArchiveSegment.open(file));
+        }
+        logger.info("Opened {} cold archive segments from {}", segments.size(), root.toAbsolutePath());
+    }
+    
+    @PreDestroy
+    void closeSegments() {
+        for (ColdArchiveSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Error closing cold archive segment {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+        segments.clear();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Writes one partition of archived records to its immutable segment.
+     * When the partition already has a segment, its records are merged into the new one,
+     * so rows archived late for an earlier month are added rather than replacing it, and
+     * a move retried before its rows were deleted does not store them twice.
+     * 
+     * @param partition the partition key in yyyyMM form
+     * @param records the records, sorted by ICCID
+     * @return the number of records in the segment
+     * @throws IOException if the segment cannot be written
+     */
+    public long writeSegment(int partition, Iterator<SimCardActivationRecord> records) throws IOException {
+        Path target = Paths.get(directory).resolve(SEGMENT_PREFIX + partition + SEGMENT_SUFFIX);
+        ColdArchiveSegment previous = null;
+        for (ColdArchiveSegment existing : segments) {
+            if (existing.getPath().equals(target)) {
+                previous = existing;
+            }
+        }
+        long written = ColdArchiveSegment.write(target,
+            previous != null ? new MergingIterator(previous.iterator(), records) : records);
+        ColdArchiveSegment segment = ColdArchiveSegment.open(target);
+        
+        synchronized (segments) {
+            for (ColdArchiveSegment existing : segments) {
+                if (existing.getPath().equals(target)) {
+                    segments.remove(existing);
+                    existing.close();
+                }
+            }
+            int position = 0;
+            while (position < segments.size()
+                    && segments.get(position).getPath().getFileName().compareTo(target.getFileName()) > 0) {
+                position++;
+            }
+            segments.add(position, segment);
+        }
+        logger.info("Wrote cold archive segment {} with {} records", target, written);
+        return written;
+    }
+    
+    /**
+     * Looks up an archived record by ICCID across all segments.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return optional containing the archived record if found
+     */
+    public Optional<SimCardActivationRecord> find(String iccid) {
+        for (ColdArchiveSegment segment : segments) {
+            try {
+                Optional<SimCardActivationRecord> record = segment.find(iccid);
+                if (record.isPresent()) {
+                    return record;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading cold archive segment " + segment.getPath(), e);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Visits the archived records with ICCIDs in [from, toExclusive) in every segment.
+     * 
+     * @param from the lowest ICCID to visit
+     * @param toExclusive the ICCID above the range
+     * @param consumer the record consumer
+     */
+    public void forEachInRange(String from, String toExclusive, Consumer<SimCardActivationRecord> consumer) {
+        for (ColdArchiveSegment segment : segments) {
+            try {
+                segment.forEachInRange(from, toExclusive, consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading cold archive segment " + segment.getPath(), e);
+            }
+        }
+    }
+    
+    /**
+     * Visits every archived record in every segment.
+     * 
+     * @param consumer the record consumer
+     */
+    public void forEach(Consumer<SimCardActivationRecord> consumer) {
+        for (ColdArchiveSegment segment : segments) {
+            try {
+                segment.forEach(consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading cold archive segment " + segment.getPath(), e);
+            }
+        }
+    }
+    
+    /**
+     * Merges the records of an existing segment with newly archived records in ICCID order.
+     * A record present in both is written once, taking the newly archived copy.
+     */
+    private static final class MergingIterator implements Iterator<SimCardActivationRecord> {
+        
+        private final Iterator<SimCardActivationRecord> existing;
+        private final Iterator<SimCardActivationRecord> added;
+        private final Deque<SimCardActivationRecord> pending = new ArrayDeque<>();
+        private SimCardActivationRecord nextExisting;
+        private SimCardActivationRecord nextAdded;
+        
+        MergingIterator(Iterator<SimCardActivationRecord> existing, Iterator<SimCardActivationRecord> added) {
+            this.existing = existing;
+            this.added = added;
+            this.nextExisting = advance(existing);
+            this.nextAdded = advance(added);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (pending.isEmpty()) {
+                fill();
+            }
+            return !pending.isEmpty();
+        }
+        
+        @Override
+        public SimCardActivationRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+        
+        /**
+         * Takes every record of the lowest pending ICCID from both sides, de-duplicated by id.
+         */
+        private void fill() {
+            if (nextExisting == null && nextAdded == null) {
+                return;
+            }
+            String iccid;
+            if (nextExisting == null) {
+                iccid = nextAdded.getIccid();
+            } else if (nextAdded == null || nextExisting.getIccid().compareTo(nextAdded.getIccid()) < 0) {
+                iccid = nextExisting.getIccid();
+            } else {
+                iccid = nextAdded.getIccid();
+            }
+            Map<Long, SimCardActivationRecord> group = new LinkedHashMap<>();
+            while (nextExisting != null && nextExisting.getIccid().equals(iccid)) {
+                group.put(nextExisting.getId(), nextExisting);
+                nextExisting = advance(existing);
+            }
+            while (nextAdded != null && nextAdded.getIccid().equals(iccid)) {
+                group.put(nextAdded.getId(), nextAdded);
+                nextAdded = advance(added);
+            }
+            pending.addAll(group.values());
+        }
+        
+        private static SimCardActivationRecord advance(Iterator<SimCardActivationRecord> records) {
+            return records.hasNext() ? records.next() : null;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package au.com.telstra.simcardactivator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable, compressed segment file of archived activation records.
+ * 
+ * Records are written sorted by ICCID in deflate-compressed blocks. A sparse
+ * index holding the first ICCID, offset and length of every block is stored at
+ * the end of the file, followed by a fixed-size footer. Readers memory-map the
+ * blocks, keep only the sparse index on heap and inflate a single block per lookup.
+ * Offsets are 64-bit; files past 2 GB are mapped as several regions split at block
+ * boundaries, so every block lies within one region.
+ * A new segment is forced to disk and its directory synced once it is in place, so it
+ * survives a crash before the rows it replaces are deleted.
+ */
+public final class ColdArchiveSegment implements Closeable {
+    
+    private static final int MAGIC = 0x53434153; // "SCAS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int RECORDS_PER_BLOCK = 128;
+    private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final int[] blockRegions;
+    private final int[] regionOffsets;
+    private final String[] firstIccids;
+    private final int[] lengths;
+    private final String lastIccid;
+    private final long recordCount;
+    
+    private ColdArchiveSegment(Path path, FileChannel channel, MappedByteBuffer[] regions, int[] blockRegions,
+                               int[] regionOffsets, String[] firstIccids, int[] lengths, String lastIccid, long recordCount) {
+        this.path = path;
+        this.channel = channel;
+        this.regions = regions;
+        this.blockRegions = blockRegions;
+        this.regionOffsets = regionOffsets;
+        this.firstIccids = firstIccids;
+        this.lengths = lengths;
+        this.lastIccid = lastIccid;
+        this.recordCount = recordCount;
+    }
+    
+    /**
+     * Writes a segment file from records already sorted by ICCID.
+     * The file is written under a temporary name, forced to disk and atomically moved into
+     * place, replacing any existing file of that name; the directory is then synced so the
+     * move itself is durable. Callers replacing a segment must include its records.
+     * 
+     * @param target the segment file to create
+     * @param records the records, sorted by ICCID
+     * @return the number of records written
+     * @throws IOException if the segment cannot be written
+     */
+    public static long write(Path target, Iterator<SimCardActivationRecord> records) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<String> blockFirstIccids = new ArrayList<>();
+        List<long[]> blockPositions = new ArrayList<>();
+        String previousIccid = null;
+        long written = 0;
+        
+        try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream fileOut = new BufferedOutputStream(Channels.newOutputStream(fileChannel));
+             DataOutputStream out = new DataOutputStream(fileOut)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            long position = 2L * Integer.BYTES;
+            
+            ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+            DataOutputStream block = new DataOutputStream(blockBytes);
+            int blockRecords = 0;
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                while (records.hasNext()) {
+                    SimCardActivationRecord record = records.next();
+                    if (previousIccid != null && previousIccid.compareTo(record.getIccid()) > 0) {
+                        throw new IllegalArgumentException("Records must be sorted by ICCID");
+                    }
+                    if (blockRecords == 0) {
+                        blockFirstIccids.add(record.getIccid());
+                    }
+                    writeRecord(block, record);
+                    previousIccid = record.getIccid();
+                    blockRecords++;
+                    written++;
+                    if (blockRecords == RECORDS_PER_BLOCK) {
+                        position = flushBlock(out, blockBytes, blockRecords, deflater, position, blockPositions);
+                        blockRecords = 0;
+                    }
+                }
+                if (blockRecords > 0) {
+                    position = flushBlock(out, blockBytes, blockRecords, deflater, position, blockPositions);
+                }
+            } finally {
+                deflater.end();
+            }
+            
+            long indexOffset = position;
+            out.writeInt(blockFirstIccids.size());
+            out.writeLong(written);
+            out.writeUTF(previousIccid != null ? previousIccid : "");
+            for (int i = 0; i < blockFirstIccids.size(); i++) {
+                out.writeUTF(blockFirstIccids.get(i));
+                out.writeLong(blockPositions.get(i)[0]);
+                out.writeInt((int) blockPositions.get(i)[1]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            fileChannel.force(true);
+        }
+        
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.toAbsolutePath().getParent());
+        return written;
+    }
+    
+    /**
+     * Forces a directory entry change to disk. Not every platform can open a directory
+     * for this; there the move is as durable as the file system makes it.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (UnsupportedOperationException | AccessDeniedException e) {
+            // Directories cannot be opened as channels on this platform
+        }
+    }
+    
+    private static long flushBlock(DataOutputStream out, ByteArrayOutputStream blockBytes, int blockRecords,
+                                   Deflater deflater, long position, List<long[]> blockPositions) throws IOException {
+        byte[] raw = blockBytes.toByteArray();
+        blockBytes.reset();
+        
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] chunk = new byte[8192];
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length / 2 + 16);
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            deflated.write(chunk, 0, length);
+        }
+        
+        byte[] body = deflated.toByteArray();
+        out.writeInt(blockRecords);
+        out.write(body);
+        int length = Integer.BYTES + body.length;
+        blockPositions.add(new long[] {position, length});
+        return position + length;
+    }
+    
+    private static void writeRecord(DataOutputStream out, SimCardActivationRecord record) throws IOException {
+        out.writeLong(record.getId() != null ? record.getId() : 0L);
+        out.writeUTF(record.getIccid());
+        out.writeUTF(record.getCustomerEmail());
+        out.writeBoolean(record.isActive());
+        LocalDateTime timestamp = record.getActivationTimestamp();
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+        out.writeBoolean(record.getActuatorResponse() != null);
+        if (record.getActuatorResponse() != null) {
+            out.writeUTF(record.getActuatorResponse());
+        }
+        out.writeLong(record.getVersion() != null ? record.getVersion() : 0L);
+    }
+    
+    private static SimCardActivationRecord readRecord(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String iccid = in.readUTF();
+        String customerEmail = in.readUTF();
+        boolean active = in.readBoolean();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        String actuatorResponse = in.readBoolean() ? in.readUTF() : null;
+        long version = in.readLong();
+        
+        SimCardActivationRecord record = new SimCardActivationRecord(iccid, customerEmail, active);
+        record.setId(id);
+        record.setActivationTimestamp(timestamp);
+        record.setActuatorResponse(actuatorResponse);
+        record.setVersion(version);
+        return record;
+    }
+    
+    /**
+     * Opens and memory-maps an existing segment file.
+     * 
+     * @param path the segment file
+     * @return the opened segment
+     * @throws IOException if the file cannot be read or is not a valid segment
+     */
+    public static ColdArchiveSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 2L * Integer.BYTES + FOOTER_SIZE) {
+                throw new IOException("Segment file too small: " + path);
+            }
+            ByteBuffer header = read(channel, 0, Integer.BYTES);
+            ByteBuffer footer = read(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong(0);
+            if (header.getInt(0) != MAGIC || footer.getInt(Long.BYTES) != MAGIC
+                    || indexOffset < 2L * Integer.BYTES || indexOffset > size - FOOTER_SIZE) {
+                throw new IOException("Not an activation archive segment: " + path);
+            }
+            
+            ByteBuffer indexBytes = read(channel, indexOffset, Math.toIntExact(size - FOOTER_SIZE - indexOffset));
+            DataInputStream index = new DataInputStream(
+                new ByteArrayInputStream(indexBytes.array(), 0, indexBytes.limit()));
+            int blockCount = index.readInt();
+            long recordCount = index.readLong();
+            String lastIccid = index.readUTF();
+            String[] firstIccids = new String[blockCount];
+            long[] offsets = new long[blockCount];
+            int[] lengths = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                firstIccids[i] = index.readUTF();
+                offsets[i] = index.readLong();
+                lengths[i] = index.readInt();
+            }
+            
+            // Map the blocks as regions of up to 2 GB that never split a block
+            List<MappedByteBuffer> regions = new ArrayList<>();
+            int[] blockRegions = new int[blockCount];
+            int[] regionOffsets = new int[blockCount];
+            long regionStart = blockCount > 0 ? offsets[0] : 0;
+            for (int i = 0; i < blockCount; i++) {
+                if (offsets[i] + lengths[i] - regionStart > MAX_REGION_SIZE) {
+                    regions.add(channel.map(FileChannel.MapMode.READ_ONLY, regionStart, offsets[i] - regionStart));
+                    regionStart = offsets[i];
+                }
+                blockRegions[i] = regions.size();
+                regionOffsets[i] = (int) (offsets[i] - regionStart);
+            }
+            if (blockCount > 0) {
+                long regionEnd = offsets[blockCount - 1] + lengths[blockCount - 1];
+                regions.add(channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionEnd - regionStart));
+            }
+            return new ColdArchiveSegment(path, channel, regions.toArray(new MappedByteBuffer[0]), blockRegions,
+                regionOffsets, firstIccids, lengths, lastIccid, recordCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Looks up a record by ICCID with a binary search over the sparse index
+     * followed by a scan of one decompressed block.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return optional containing the archived record if found
+     * @throws IOException if the block cannot be decompressed
+     */
+    public Optional<SimCardActivationRecord> find(String iccid) throws IOException {
+        if (firstIccids.length == 0 || iccid.compareTo(firstIccids[0]) < 0 || iccid.compareTo(lastIccid) > 0) {
+            return Optional.empty();
+        }
+        int low = 0;
+        int high = firstIccids.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIccids[mid].compareTo(iccid) < 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // Duplicates of an ICCID may start in the preceding block, so scan forward from it
+        for (int block = low; block < firstIccids.length && firstIccids[block].compareTo(iccid) <= 0; block++) {
+            int count = blockRecordCount(block);
+            try (DataInputStream in = openBlock(block)) {
+                for (int i = 0; i < count; i++) {
+                    SimCardActivationRecord record = readRecord(in);
+                    int comparison = record.getIccid().compareTo(iccid);
+                    if (comparison == 0) {
+                        return Optional.of(record);
+                    }
+                    if (comparison > 0) {
+                        return Optional.empty();
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Visits the records with ICCIDs in [from, toExclusive) in ICCID order, inflating
+     * only the blocks that overlap the range.
+     * 
+     * @param from the lowest ICCID to visit
+     * @param toExclusive the ICCID above the range
+     * @param consumer the record consumer
+     * @throws IOException if a block cannot be decompressed
+     */
+    public void forEachInRange(String from, String toExclusive, Consumer<SimCardActivationRecord> consumer) throws IOException {
+        if (firstIccids.length == 0 || toExclusive.compareTo(firstIccids[0]) <= 0 || from.compareTo(lastIccid) > 0) {
+            return;
+        }
+        int low = 0;
+        int high = firstIccids.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIccids[mid].compareTo(from) < 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        for (int block = low; block < firstIccids.length && firstIccids[block].compareTo(toExclusive) < 0; block++) {
+            int count = blockRecordCount(block);
+            try (DataInputStream in = openBlock(block)) {
+                for (int i = 0; i < count; i++) {
+                    SimCardActivationRecord record = readRecord(in);
+                    if (record.getIccid().compareTo(toExclusive) >= 0) {
+                        return;
+                    }
+                    if (record.getIccid().compareTo(from) >= 0) {
+                        consumer.accept(record);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Visits every record in ICCID order.
+     * 
+     * @param consumer the record consumer
+     * @throws IOException if a block cannot be decompressed
+     */
+    public void forEach(Consumer<SimCardActivationRecord> consumer) throws IOException {
+        for (int block = 0; block < firstIccids.length; block++) {
+            int count = blockRecordCount(block);
+            try (DataInputStream in = openBlock(block)) {
+                for (int i = 0; i < count; i++) {
+                    consumer.accept(readRecord(in));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns an iterator over every record in ICCID order, inflating one block at a time.
+     * Each block's inflater is released when the iterator moves past the block, so an
+     * iterator that is read to the end holds no native memory.
+     * 
+     * @return the record iterator, throwing {@link UncheckedIOException} if a block cannot be read
+     */
+    public Iterator<SimCardActivationRecord> iterator() {
+        return new Iterator<SimCardActivationRecord>() {
+        
+            private int block = -1;
+            private int remaining;
+            private DataInputStream in;
+            
+            @Override
+            public boolean hasNext() {
+                while (remaining == 0 && block + 1 < firstIccids.length) {
+                    closeBlock();
+                    block++;
+                    remaining = blockRecordCount(block);
+                    in = openBlock(block);
+                }
+                if (remaining == 0) {
+                    closeBlock();
+                }
+                return remaining > 0;
+            }
+            
+            private void closeBlock() {
+                if (in == null) {
+                    return;
+                }
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error closing cold archive segment block " + path, e);
+                } finally {
+                    in = null;
+                }
+            }
+            
+            @Override
+            public SimCardActivationRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    remaining--;
+                    return readRecord(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error reading cold archive segment " + path, e);
+                }
+            }
+        };
+    }
+    
+    private int blockRecordCount(int block) {
+        return regions[blockRegions[block]].getInt(regionOffsets[block]);
+    }
+    
+    private DataInputStream openBlock(int block) {
+        // Each block is a record count followed by the deflated records
+        byte[] compressed = new byte[lengths[block] - Integer.BYTES];
+        ByteBuffer view = regions[blockRegions[block]].duplicate();
+        view.position(regionOffsets[block] + Integer.BYTES);
+        view.get(compressed);
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    }
+    
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0) {
+                throw new IOException("Unexpected end of segment file");
+            }
+        }
+        bytes.flip();
+        return bytes;
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
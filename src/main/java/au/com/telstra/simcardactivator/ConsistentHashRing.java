@@ -0,0 +1,65 @@
+package au.com.telstra.simcardactivator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping keys to nodes.
+ * Each node is placed on the ring at several virtual positions so keys spread
+ * evenly, and adding or removing a node only moves the keys next to its positions.
+ * Positions are derived from MD5, so every node computes the same ring from the same peer list.
+ */
+public final class ConsistentHashRing {
+    
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+    
+    // Constructor with parameters
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+    
+    /**
+     * Returns the node owning the given key.
+     * 
+     * @param key the key, such as an ICCID
+     * @return the owning node
+     */
+    public String ownerOf(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+    
+    public List<String> getNodes() {
+        return nodes;
+    }
+    
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Fills in the customer email hash of rows written before the column existed.
+ * Runs once in the background after startup when enabled, one batch per transaction,
+ * so the service is ready immediately and rows become findable by customer as it progresses.
+ * Hashes are written with bulk updates, which leave record versions and ETags unchanged.
+ */
+@Component
+public class CustomerEmailBackfill {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CustomerEmailBackfill.class);
+    
+    @Value("${activation.customer-email.backfill.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${activation.customer-email.backfill.batch-size:1000}")
+    private int batchSize;
+    
+    @Autowired
+    private SimCardActivationRepository repository;
+    
+    @Autowired
+    private ArchivedSimCardActivationRepository archiveRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "customer-email-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Backfills the hot table and then the archive table of every shard.
+     */
+    void backfill() {
+        try {
+            long hot = 0;
+            long archived = 0;
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                hot += shards.onShard(shard,
+                    () -> backfill(repository::findRowsWithoutEmailHash, repository::updateEmailHash));
+                archived += shards.onShard(shard,
+                    () -> backfill(archiveRepository::findRowsWithoutEmailHash, archiveRepository::updateEmailHash));
+            }
+            logger.info("Customer email hash backfill completed: {} hot and {} archived records", hot, archived);
+        } catch (RuntimeException e) {
+            logger.error("Customer email hash backfill failed: {}", e.getMessage(), e);
+        }
+    }
+    
+    private long backfill(Function<Pageable, List<CustomerEmailRow>> findBatch,
+                          BiFunction<Long, Long, Integer> update) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Pageable firstBatch = PageRequest.of(0, batchSize);
+        long total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<CustomerEmailRow> rows = findBatch.apply(firstBatch);
+                for (CustomerEmailRow row : rows) {
+                    update.apply(row.getId(), CustomerEmails.hash(row.getCustomerEmail()));
+                }
+                return rows.size();
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+            logger.debug("Backfilled customer email hash for {} records", total);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Projection of the identifier and customer email of a record, used to backfill
+ * the customer email hash column without loading whole entities.
+ */
+public interface CustomerEmailRow {
+    
+    Long getId();
+    
+    String getCustomerEmail();
+}
@@ -0,0 +1,60 @@
+package au.com.telstra.simcardactivator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Normalisation and hashing of customer email addresses.
+ * Emails are stored exactly as received; lookups go through a 64-bit hash of the
+ * normalised form, which is stored in an indexed fixed-width column. The hash is
+ * persisted, so both functions must not change without a migration of the column.
+ */
+public final class CustomerEmails {
+    
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private CustomerEmails() {}
+    
+    /**
+     * Normalises an email for case-insensitive comparison.
+     * 
+     * @param email the email as received
+     * @return the trimmed, lower-cased email, or null if the email is null
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Computes the 64-bit FNV-1a hash of the normalised email.
+     * Different emails can share a hash, so matches must be confirmed with {@link #matches}.
+     * 
+     * @param email the email as received
+     * @return the hash, or null if the email is null
+     */
+    public static Long hash(String email) {
+        String normalized = normalize(email);
+        if (normalized == null) {
+            return null;
+        }
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : normalized.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    /**
+     * Checks whether two emails are equal after normalisation.
+     * 
+     * @param email the first email
+     * @param other the second email
+     * @return true if both normalise to the same address
+     */
+    public static boolean matches(String email, String other) {
+        String normalized = normalize(email);
+        return normalized != null && normalized.equals(normalize(other));
+    }
+}
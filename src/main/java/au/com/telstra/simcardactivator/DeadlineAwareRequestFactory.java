@@ -0,0 +1,24 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Request factory whose connect and read timeouts never exceed the remaining
+ * budget of the request deadline on the calling thread.
+ * The read timeout applies to each read, so a call can overrun the deadline by
+ * at most the time of one slow read.
+ */
+public class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+    
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        if (RequestDeadline.isSet()) {
+            connection.setConnectTimeout(RequestDeadline.boundTimeout(connection.getConnectTimeout()));
+            connection.setReadTimeout(RequestDeadline.boundTimeout(connection.getReadTimeout()));
+        }
+    }
+}
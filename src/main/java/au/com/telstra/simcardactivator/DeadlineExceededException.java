@@ -0,0 +1,15 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Thrown when the caller's deadline has passed, or leaves too little time to call
+ * the actuator. Either nothing is recorded for the ICCID, or the abandoned actuator
+ * call is recorded with an unknown outcome, so the request can be retried with a
+ * longer deadline and the retry calls the actuator.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    
+    // Constructor with parameters
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,192 @@
+package au.com.telstra.simcardactivator;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel holding timers as primitive (id, tick) pairs.
+ * Each timer costs 16 bytes plus array slack, so millions of pending timers fit in
+ * tens of megabytes. Timers are hashed into {@code wheelSize} buckets by their
+ * deadline tick; advancing the wheel scans only the buckets of the elapsed ticks and
+ * moves due timers to a ready queue, which is drained at the caller's pace with
+ * {@link #pollReady}. A timer never fires before its deadline and fires at most one
+ * tick after it once the wheel is advanced.
+ * All methods are thread-safe; each operation holds the wheel lock for one bucket at most.
+ */
+public final class HashedTimingWheel {
+    
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+    private static final int INITIAL_READY_CAPACITY = 1024;
+    
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    
+    private final long[][] bucketIds;
+    private final long[][] bucketTicks;
+    private final int[] bucketSizes;
+    
+    // Ready queue: ring buffer of due timer ids
+    private long[] ready = new long[INITIAL_READY_CAPACITY];
+    private int readyHead;
+    private int readySize;
+    
+    private long processedTick = -1;
+    private long pending;
+    
+    /**
+     * Creates a timing wheel.
+     * 
+     * @param tickMillis the tick duration in milliseconds
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     * @param startMillis the time of tick zero, in epoch milliseconds
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = size - 1;
+        this.bucketIds = new long[size][];
+        this.bucketTicks = new long[size][];
+        this.bucketSizes = new int[size];
+    }
+    
+    /**
+     * Adds a timer. Deadlines in the past fire on the next advance.
+     * 
+     * @param id the timer id
+     * @param deadlineMillis the deadline in epoch milliseconds
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        // Round up so the timer is never released before its deadline
+        long tick = Math.max(ceilDiv(deadlineMillis - startMillis, tickMillis), processedTick + 1);
+        int bucket = (int) (tick & mask);
+        int size = bucketSizes[bucket];
+        if (bucketIds[bucket] == null) {
+            bucketIds[bucket] = new long[INITIAL_BUCKET_CAPACITY];
+            bucketTicks[bucket] = new long[INITIAL_BUCKET_CAPACITY];
+        } else if (size == bucketIds[bucket].length) {
+            bucketIds[bucket] = Arrays.copyOf(bucketIds[bucket], size * 2);
+            bucketTicks[bucket] = Arrays.copyOf(bucketTicks[bucket], size * 2);
+        }
+        bucketIds[bucket][size] = id;
+        bucketTicks[bucket][size] = tick;
+        bucketSizes[bucket] = size + 1;
+        pending++;
+    }
+    
+    /**
+     * Processes every tick that has elapsed up to the given time, moving due timers to the ready queue.
+     * 
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the number of timers that became ready
+     */
+    public int advance(long nowMillis) {
+        long currentTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        int moved = 0;
+        while (true) {
+            synchronized (this) {
+                if (processedTick >= currentTick) {
+                    return moved;
+                }
+                processedTick++;
+                moved += expireBucket(processedTick);
+            }
+        }
+    }
+    
+    private int expireBucket(long tick) {
+        int bucket = (int) (tick & mask);
+        int size = bucketSizes[bucket];
+        if (size == 0) {
+            return 0;
+        }
+        long[] ids = bucketIds[bucket];
+        long[] ticks = bucketTicks[bucket];
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (ticks[i] <= tick) {
+                offerReady(ids[i]);
+            } else {
+                // Timer for a later revolution of the wheel
+                ids[kept] = ids[i];
+                ticks[kept] = ticks[i];
+                kept++;
+            }
+        }
+        bucketSizes[bucket] = kept;
+        if (kept == 0 && ids.length > INITIAL_BUCKET_CAPACITY * 16) {
+            // Release the memory of buckets that held a burst of timers
+            bucketIds[bucket] = null;
+            bucketTicks[bucket] = null;
+        }
+        pending -= size - kept;
+        return size - kept;
+    }
+    
+    private void offerReady(long id) {
+        if (readySize == ready.length) {
+            long[] grown = new long[ready.length * 2];
+            for (int i = 0; i < readySize; i++) {
+                grown[i] = ready[(readyHead + i) % ready.length];
+            }
+            ready = grown;
+            readyHead = 0;
+        }
+        ready[(readyHead + readySize) % ready.length] = id;
+        readySize++;
+    }
+    
+    /**
+     * Removes up to {@code max} due timers from the ready queue, oldest first.
+     * 
+     * @param max the maximum number of timers to remove
+     * @param consumer receives the id of each removed timer, outside the wheel lock
+     * @return the number of timers removed
+     */
+    public int pollReady(int max, LongConsumer consumer) {
+        long[] polled;
+        synchronized (this) {
+            int count = Math.min(max, readySize);
+            polled = new long[count];
+            for (int i = 0; i < count; i++) {
+                polled[i] = ready[readyHead];
+                readyHead = (readyHead + 1) % ready.length;
+            }
+            readySize -= count;
+            if (readySize == 0 && ready.length > INITIAL_READY_CAPACITY * 16) {
+                ready = new long[INITIAL_READY_CAPACITY];
+                readyHead = 0;
+            }
+        }
+        for (long id : polled) {
+            consumer.accept(id);
+        }
+        return polled.length;
+    }
+    
+    /**
+     * Returns the number of timers not yet due.
+     * 
+     * @return the pending timer count
+     */
+    public synchronized long pendingCount() {
+        return pending;
+    }
+    
+    /**
+     * Returns the number of due timers waiting to be polled.
+     * 
+     * @return the ready timer count
+     */
+    public synchronized int readyCount() {
+        return readySize;
+    }
+    
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,106 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * A contiguous range of ICCIDs, given either as a prefix or as inclusive bounds.
+ * Both forms are reduced to a half-open interval [from, toExclusive) in string
+ * order, which is what the ICCID index range scans and counts use.
+ */
+public final class IccidRange {
+    
+    private final String prefix;
+    private final String from;
+    private final String to;
+    private final String toExclusive;
+    
+    private IccidRange(String prefix, String from, String to, String toExclusive) {
+        this.prefix = prefix;
+        this.from = from;
+        this.to = to;
+        this.toExclusive = toExclusive;
+    }
+    
+    /**
+     * Creates the range of all ICCIDs starting with the given prefix.
+     * 
+     * @param prefix the ICCID prefix
+     * @return the range
+     * @throws IllegalArgumentException if the prefix is empty
+     */
+    public static IccidRange prefix(String prefix) {
+        String trimmed = prefix == null ? "" : prefix.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("ICCID prefix must not be empty");
+        }
+        char last = trimmed.charAt(trimmed.length() - 1);
+        if (last == Character.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid ICCID prefix: " + prefix);
+        }
+        // The smallest string above every string with this prefix
+        String upper = trimmed.substring(0, trimmed.length() - 1) + (char) (last + 1);
+        return new IccidRange(trimmed, trimmed, null, upper);
+    }
+    
+    /**
+     * Creates the range of ICCIDs between two bounds, both inclusive.
+     * 
+     * @param from the lowest ICCID in the range
+     * @param to the highest ICCID in the range
+     * @return the range
+     * @throws IllegalArgumentException if a bound is missing or from is above to
+     */
+    public static IccidRange between(String from, String to) {
+        if (from == null || from.trim().isEmpty() || to == null || to.trim().isEmpty()) {
+            throw new IllegalArgumentException("Both iccidFrom and iccidTo are required");
+        }
+        String lower = from.trim();
+        String upper = to.trim();
+        if (lower.compareTo(upper) > 0) {
+            throw new IllegalArgumentException("iccidFrom must not be above iccidTo");
+        }
+        // Appending the lowest character gives the immediate successor of the upper bound
+        return new IccidRange(null, lower, upper, upper + '\0');
+    }
+    
+    /**
+     * Builds a range from optional request parameters.
+     * 
+     * @param prefix the ICCID prefix, or null
+     * @param from the inclusive lower bound, or null
+     * @param to the inclusive upper bound, or null
+     * @return the range, or null when no parameter is given
+     * @throws IllegalArgumentException if the parameters are inconsistent
+     */
+    public static IccidRange of(String prefix, String from, String to) {
+        if (prefix == null && from == null && to == null) {
+            return null;
+        }
+        if (prefix != null) {
+            if (from != null || to != null) {
+                throw new IllegalArgumentException("iccidPrefix cannot be combined with iccidFrom or iccidTo");
+            }
+            return prefix(prefix);
+        }
+        return between(from, to);
+    }
+    
+    public String getPrefix() {
+        return prefix;
+    }
+    
+    public String getFrom() {
+        return from;
+    }
+    
+    public String getTo() {
+        return to;
+    }
+    
+    public String getToExclusive() {
+        return toExclusive;
+    }
+    
+    @Override
+    public String toString() {
+        return prefix != null ? prefix + "*" : "[" + from + ", " + to + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Hashing of SIM card ICCIDs.
+ * The same 64-bit hash picks the shard holding an ICCID's records, keys the known-ICCID
+ * set and identifies the ICCID in JFR events. The shard choice depends on it, so the
+ * function must not change without moving the existing records.
+ */
+public final class Iccids {
+    
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private Iccids() {}
+    
+    /**
+     * Computes the 64-bit FNV-1a hash of an ICCID over its characters.
+     * ICCIDs are ASCII, so this equals the hash of their UTF-8 bytes.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return the hash
+     */
+    public static long hash(String iccid) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < iccid.length(); i++) {
+            hash ^= iccid.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
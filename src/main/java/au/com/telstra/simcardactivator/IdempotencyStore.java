@@ -0,0 +1,157 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicted store of responses keyed by Idempotency-Key.
+ * The first request for a key executes and its response is stored; retries
+ * with the same key and body get the stored response, and retries that arrive
+ * while the first request is still running wait for its result.
+ * Entries are evicted oldest first once they expire or the store is full, whether or
+ * not their request has finished; a retry already waiting on an evicted entry still
+ * receives its result.
+ */
+@Component
+public class IdempotencyStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String KEY_REUSED_MESSAGE = "Idempotency-Key was already used with a different request body";
+    private static final String IN_PROGRESS_MESSAGE = "A request with this Idempotency-Key is still in progress";
+    private static final String ORIGINAL_FAILED_MESSAGE = "The original request with this Idempotency-Key failed; retry it";
+    
+    @Value("${activation.idempotency.max-entries:100000}")
+    private int maxEntries;
+    
+    @Value("${activation.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+    
+    @Value("${activation.idempotency.in-flight-wait-ms:30000}")
+    private long inFlightWaitMillis;
+    
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    // Entries in insertion order, used for TTL and size-based eviction. An entry replaced
+    // after expiring stays queued until it reaches the head, where it is discarded
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * Executes the request once per key and replays the stored response for retries.
+     * Server errors are not stored, so a retry after a 5xx executes again.
+     * 
+     * @param key the Idempotency-Key header value
+     * @param fingerprint a representation of the request body
+     * @param action the request handling to execute for the first request
+     * @return the response for this request
+     */
+    public ResponseEntity<String> execute(String key, String fingerprint, Supplier<ResponseEntity<String>> action) {
+        evict();
+        Entry fresh = new Entry(key, fingerprint);
+        Entry existing = entries.putIfAbsent(key, fresh);
+        if (existing != null && existing.isExpired(ttlSeconds) && entries.replace(key, existing, fresh)) {
+            existing = null;
+        }
+        
+        if (existing == null) {
+            insertionOrder.add(fresh);
+            return executeFirst(key, fresh, action);
+        }
+        
+        if (!Objects.equals(existing.fingerprint, fingerprint)) {
+            logger.warn("Idempotency-Key {} reused with a different request body", key);
+            return ResponseEntity.unprocessableEntity().body(KEY_REUSED_MESSAGE);
+        }
+        return replay(key, existing);
+    }
+    
+    private ResponseEntity<String> executeFirst(String key, Entry entry, Supplier<ResponseEntity<String>> action) {
+        ResponseEntity<String> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.remove(key, entry);
+        }
+        entry.response.complete(response);
+        return response;
+    }
+    
+    private ResponseEntity<String> replay(String key, Entry entry) {
+        try {
+            ResponseEntity<String> stored = entry.response.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+            logger.info("Replaying stored response for Idempotency-Key {}", key);
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(stored.getHeaders());
+            headers.set(REPLAYED_HEADER, "true");
+            return new ResponseEntity<>(stored.getBody(), headers, stored.getStatusCode());
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(IN_PROGRESS_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException e) {
+            // The original request failed without a response and the key has been released,
+            // so the client may retry; like other server errors this is not stored
+            logger.warn("Original request for Idempotency-Key {} failed: {}", key, e.getCause().getMessage());
+            return ResponseEntity.internalServerError().body(ORIGINAL_FAILED_MESSAGE);
+        }
+    }
+    
+    /**
+     * Removes expired entries from the head of the insertion order and, when
+     * over capacity, the oldest entries.
+     */
+    private void evict() {
+        Entry entry;
+        while ((entry = insertionOrder.peek()) != null) {
+            boolean current = entries.get(entry.key) == entry;
+            if (current && !entry.isExpired(ttlSeconds) && entries.size() < maxEntries) {
+                break;
+            }
+            if (insertionOrder.remove(entry) && current) {
+                entries.remove(entry.key, entry);
+            }
+        }
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private static final class Entry {
+        
+        private final String key;
+        private final String fingerprint;
+        private final long createdAtNanos = System.nanoTime();
+        private final CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        
+        Entry(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+        
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - createdAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
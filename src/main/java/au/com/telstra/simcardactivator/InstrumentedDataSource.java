@@ -0,0 +1,163 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource wrapper that counts executed statements, fetched rows and JDBC time
+ * into the {@link QueryCount} totals of the calling thread.
+ * Connections, statements and result sets are wrapped in JDK proxies that only
+ * intercept statement execution and {@link ResultSet#next()}.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+    
+    private static final ClassLoader CLASS_LOADER = InstrumentedDataSource.class.getClassLoader();
+    
+    // Constructor with parameters
+    public InstrumentedDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+    
+    /**
+     * Closes the target pool when the application context shuts down.
+     */
+    @Override
+    public void close() throws Exception {
+        DataSource target = getTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            ((AutoCloseable) target).close();
+        }
+    }
+    
+    private static Connection wrapConnection(Connection connection) {
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+    
+    private static <T> T wrap(Class<T> type, JdbcHandler handler) {
+        return type.cast(Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[] {type}, handler));
+    }
+    
+    /**
+     * Forwards calls to the wrapped JDBC object, giving proxies identity semantics.
+     */
+    private abstract static class JdbcHandler implements InvocationHandler {
+        
+        private final Object target;
+        
+        JdbcHandler(Object target) {
+            this.target = target;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return target.toString();
+                default:
+                    return handle(method, args);
+            }
+        }
+        
+        Object handle(Method method, Object[] args) throws Throwable {
+            return forward(method, args);
+        }
+        
+        final Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    private static final class ConnectionHandler extends JdbcHandler {
+        
+        ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+        
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrap(Statement.class, new StatementHandler(result));
+                case "prepareStatement":
+                    return wrap(PreparedStatement.class, new StatementHandler(result));
+                case "prepareCall":
+                    return wrap(CallableStatement.class, new StatementHandler(result));
+                default:
+                    return result;
+            }
+        }
+    }
+    
+    private static final class StatementHandler extends JdbcHandler {
+        
+        StatementHandler(Object statement) {
+            super(statement);
+        }
+        
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long started = System.nanoTime();
+                Object result;
+                try {
+                    result = forward(method, args);
+                } finally {
+                    QueryCount.recordStatement(System.nanoTime() - started);
+                }
+                return result instanceof ResultSet ? wrap(ResultSet.class, new ResultSetHandler(result)) : result;
+            }
+            Object result = forward(method, args);
+            if ("getResultSet".equals(name) && result != null) {
+                return wrap(ResultSet.class, new ResultSetHandler(result));
+            }
+            return result;
+        }
+    }
+    
+    private static final class ResultSetHandler extends JdbcHandler {
+        
+        ResultSetHandler(Object resultSet) {
+            super(resultSet);
+        }
+        
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                QueryCount.recordRow();
+            }
+            return result;
+        }
+    }
+}
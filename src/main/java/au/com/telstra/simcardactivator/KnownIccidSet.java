@@ -0,0 +1,142 @@
+package au.com.telstra.simcardactivator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import java.util.stream.Stream;
+
+/**
+ * Off-heap set of every ICCID with a recorded activation, across the hot table,
+ * the archive table and the cold archive.
+ * ICCIDs are stored as 64-bit hashes. Built by a streaming scan at startup and updated
+ * before every save; until the scan has finished every ICCID is reported as possibly known.
+ * Every local write goes through the activation service, and each instance owns its
+ * store, so by default the set is authoritative: a miss means the ICCID is new and
+ * the duplicate check skips the database. A hit may be a hash collision, so it is
+ * confirmed by fetching the previous record. When rows can be written behind the
+ * service's back, set {@code activation.known-iccids.authoritative=false} and misses
+ * are confirmed with existence queries as well.
+ */
+@Component
+public class KnownIccidSet implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KnownIccidSet.class);
+    
+    @Value("${activation.known-iccids.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.known-iccids.expected-size:1000000}")
+    private long expectedSize;
+    
+    @Value("${activation.known-iccids.authoritative:true}")
+    private boolean authoritative;
+    
+    @Autowired
+    private SimCardActivationRepository repository;
+    
+    @Autowired
+    private ArchivedSimCardActivationRepository archiveRepository;
+    
+    @Autowired
+    private ColdArchive coldArchive;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private OffHeapLongSet iccids;
+    
+    private volatile boolean loaded;
+    
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        iccids = new OffHeapLongSet(expectedSize);
+        Gauge.builder("activation.known-iccids.size", iccids, OffHeapLongSet::size)
+            .description("ICCIDs in the off-heap duplicate-detection set")
+            .register(meterRegistry);
+        Gauge.builder("activation.known-iccids.off-heap", iccids, OffHeapLongSet::offHeapBytes)
+            .description("Native memory held by the duplicate-detection set")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Loads the ICCIDs of all tiers before the application reports ready,
+     * scanning all shards in parallel.
+     * 
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        shards.onEveryShard(() -> readOnlyTransactionTemplate.execute(status -> {
+            try (Stream<String> hot = repository.streamAllIccids()) {
+                hot.forEach(this::add);
+            }
+            try (Stream<String> archived = archiveRepository.streamAllIccids()) {
+                archived.forEach(this::add);
+            }
+            return null;
+        }));
+        coldArchive.forEach(record -> add(record.getIccid()));
+        loaded = true;
+        logger.info("Loaded {} known ICCIDs ({} KB off-heap) in {} ms",
+            iccids.size(), iccids.offHeapBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Checks whether an ICCID may have a recorded activation.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return false if no record of the ICCID has been seen by this instance
+     */
+    public boolean mightContain(String iccid) {
+        return !loaded || iccids.contains(Iccids.hash(iccid));
+    }
+    
+    /**
+     * Checks whether an ICCID is certainly new, so the database need not be asked.
+     * Only an authoritative, fully loaded set answers true.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return true if the ICCID has no recorded activation
+     */
+    public boolean isCertainlyNew(String iccid) {
+        return authoritative && loaded && !iccids.contains(Iccids.hash(iccid));
+    }
+    
+    /**
+     * Records an ICCID as known. Called before its record is saved, so a concurrent
+     * check never reports an ICCID as new once its record can be read.
+     * 
+     * @param iccid the SIM card ICCID
+     */
+    public void add(String iccid) {
+        if (enabled && iccid != null) {
+            iccids.add(Iccids.hash(iccid));
+        }
+    }
+}
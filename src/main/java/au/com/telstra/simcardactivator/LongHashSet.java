@@ -0,0 +1,161 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Open-addressing hash set of primitive longs on the Java heap, with removal.
+ * Keys live in a single array with linear probing, eight bytes per slot. The table
+ * doubles when three quarters full, so while it grows a key costs 11 to 21 bytes instead
+ * of the 50 or more of a boxed key in a concurrent set, and halves when less than an
+ * eighth full, so the memory of a burst is given back. Removal shifts the following keys
+ * of the probe run back rather than leaving tombstones, so lookups stay short under
+ * churn. Zero marks an empty slot, so the key zero is stored as a separate flag.
+ * Not thread-safe; callers synchronize access.
+ */
+public final class LongHashSet {
+    
+    private static final int MIN_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    
+    private long[] keys;
+    private int mask;
+    private int shift;
+    private int size;
+    private boolean containsZero;
+    
+    public LongHashSet() {
+        allocate(MIN_CAPACITY);
+    }
+    
+    /**
+     * Adds a key.
+     * 
+     * @param key the key
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        if (size > keys.length / 4 * 3) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+    
+    /**
+     * Removes a key.
+     * 
+     * @param key the key
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move later keys of the probe run into the gap when their home slot allows it
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        size--;
+        if (keys.length > MIN_CAPACITY && size < keys.length / 8) {
+            resize(keys.length / 2);
+        }
+        return true;
+    }
+    
+    /**
+     * Checks whether a key is present.
+     * 
+     * @param key the key
+     * @return true if the key is in the set
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the number of keys in the set.
+     * 
+     * @return the key count
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of slots in the table.
+     * 
+     * @return the table capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    
+    // Fibonacci hashing spreads sequential ids over the whole table
+    private int slotOf(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+    
+    private void resize(int capacity) {
+        long[] old = keys;
+        allocate(Math.max(MIN_CAPACITY, capacity));
+        for (long key : old) {
+            if (key != 0) {
+                int slot = slotOf(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
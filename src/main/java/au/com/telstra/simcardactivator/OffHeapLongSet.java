@@ -0,0 +1,212 @@
+package au.com.telstra.simcardactivator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Open-addressing hash set of primitive longs stored outside the Java heap.
+ * Keys live in direct buffers with linear probing, eight bytes per slot, and nothing
+ * for the garbage collector to trace. The table is split into independently locked
+ * segments chosen by the high bits of the key's hash. Segments are sized exactly for
+ * the expected number of keys at the maximum load factor, not rounded up to a power
+ * of two, so N expected keys take about N / 0.75 * 8 bytes of native memory
+ * (50 million keys take 511 MiB); a slot is picked by scaling the low hash bits to the
+ * segment capacity. Each segment doubles when it is three quarters full, briefly
+ * holding its old and new buffers. Zero marks an empty slot, so the key zero is stored
+ * as a separate flag. Keys cannot be removed.
+ */
+public final class OffHeapLongSet {
+    
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int MIN_SEGMENT_CAPACITY = 1024;
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 27;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile boolean containsZero;
+    
+    /**
+     * Creates a set sized for the expected number of keys.
+     * 
+     * @param expectedSize the number of keys expected, used to size the segments up front
+     */
+    public OffHeapLongSet(long expectedSize) {
+        // Allow four standard deviations above the average share, since keys spread unevenly
+        double perSegmentKeys = expectedSize / (double) SEGMENTS;
+        perSegmentKeys += 4 * Math.sqrt(perSegmentKeys);
+        long perSegment = (long) Math.ceil(perSegmentKeys / MAX_LOAD_FACTOR);
+        int capacity = (int) Math.max(MIN_SEGMENT_CAPACITY, Math.min(perSegment, MAX_SEGMENT_CAPACITY));
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+    
+    /**
+     * Adds a key to the set.
+     * 
+     * @param key the key
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        long hash = mix(key);
+        return segmentFor(hash).add(key, hash);
+    }
+    
+    /**
+     * Checks whether a key is in the set.
+     * 
+     * @param key the key
+     * @return true if the key has been added
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        long hash = mix(key);
+        return segmentFor(hash).contains(key, hash);
+    }
+    
+    /**
+     * Returns the number of keys in the set.
+     * 
+     * @return the key count
+     */
+    public long size() {
+        long size = containsZero ? 1 : 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the native memory held by the table.
+     * 
+     * @return the off-heap size in bytes
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.capacityBytes();
+        }
+        return bytes;
+    }
+    
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+    
+    /**
+     * Spreads the bits of a key (MurmurHash3 finaliser), so that sequential keys such as
+     * ICCIDs from one manufacturing batch do not cluster in the probe sequence.
+     */
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * One linearly probed table in a direct buffer, guarded by its own lock.
+     */
+    private static final class Segment {
+        
+        private LongBuffer slots;
+        private int capacity;
+        private int size;
+        
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+        
+        private void allocate(int capacity) {
+            slots = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+            this.capacity = capacity;
+        }
+        
+        /**
+         * Maps the low 32 bits of a hash onto the slots, so any capacity is spread evenly.
+         */
+        private int slotFor(long hash) {
+            return (int) (((hash & 0xffffffffL) * capacity) >>> Integer.SIZE);
+        }
+        
+        private int next(int index) {
+            return index + 1 == capacity ? 0 : index + 1;
+        }
+        
+        synchronized boolean add(long key, long hash) {
+            if (size == capacity) {
+                throw new IllegalStateException("Off-heap set segment is full at " + size + " keys");
+            }
+            if (!insert(key, hash)) {
+                return false;
+            }
+            size++;
+            if (size > capacity * MAX_LOAD_FACTOR && capacity < MAX_SEGMENT_CAPACITY) {
+                grow();
+            }
+            return true;
+        }
+        
+        synchronized boolean contains(long key, long hash) {
+            int index = slotFor(hash);
+            while (true) {
+                long slot = slots.get(index);
+                if (slot == key) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+                index = next(index);
+            }
+        }
+        
+        synchronized long size() {
+            return size;
+        }
+        
+        synchronized long capacityBytes() {
+            return (long) capacity * Long.BYTES;
+        }
+        
+        private boolean insert(long key, long hash) {
+            int index = slotFor(hash);
+            while (true) {
+                long slot = slots.get(index);
+                if (slot == key) {
+                    return false;
+                }
+                if (slot == 0) {
+                    slots.put(index, key);
+                    return true;
+                }
+                index = next(index);
+            }
+        }
+        
+        private void grow() {
+            LongBuffer old = slots;
+            int oldCapacity = capacity;
+            allocate((int) Math.min((long) oldCapacity * 2, MAX_SEGMENT_CAPACITY));
+            for (int i = 0; i < oldCapacity; i++) {
+                long key = old.get(i);
+                if (key != 0) {
+                    insert(key, mix(key));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package au.com.telstra.simcardactivator;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Installs the persistence instrumentation.
+ * The application DataSource is wrapped in an {@link InstrumentedDataSource}, and every
+ * Spring Data repository gets an interceptor recording the statements, rows and JDBC
+ * time of each repository method as metrics tagged with the method name.
+ */
+@Component
+public class PersistenceInstrumentation implements BeanPostProcessor {
+    
+    static final String REQUEST_METRICS = "activation.persistence.request";
+    static final String REPOSITORY_METRICS = "activation.persistence.repository";
+    
+    @Value("${activation.persistence.instrumentation.enabled:true}")
+    private boolean enabled;
+    
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+    
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // Repositories are created when the factory bean initialises, so the interceptor must be added first
+        if (enabled && bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                    proxyFactory.addAdvice(new RepositoryMethodInterceptor(
+                        repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource((DataSource) bean);
+        }
+        return bean;
+    }
+    
+    /**
+     * Records a query count as {@code <prefix>.statements}, {@code <prefix>.rows} and
+     * {@code <prefix>.jdbc.time} metrics.
+     * 
+     * @param registry the meter registry
+     * @param prefix the metric name prefix
+     * @param count the query count to record
+     * @param tags the tag key/value pairs
+     */
+    static void record(MeterRegistry registry, String prefix, QueryCount count, String... tags) {
+        DistributionSummary.builder(prefix + ".statements").tags(tags).register(registry).record(count.getStatements());
+        DistributionSummary.builder(prefix + ".rows").tags(tags).register(registry).record(count.getRows());
+        Timer.builder(prefix + ".jdbc.time").tags(tags).register(registry).record(count.getJdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+    
+    private final class RepositoryMethodInterceptor implements MethodInterceptor {
+        
+        private final String repository;
+        
+        RepositoryMethodInterceptor(String repository) {
+            this.repository = repository;
+        }
+        
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            QueryCount before = QueryCount.current();
+            try {
+                return invocation.proceed();
+            } finally {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry != null) {
+                    QueryCount count = QueryCount.current().since(before);
+                    if (count.getStatements() > 0) {
+                        record(registry, REPOSITORY_METRICS, count, "repository", repository, "method", invocation.getMethod().getName());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package au.com.telstra.simcardactivator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements, rows fetched and JDBC time of each API request.
+ * The counts are published as metrics tagged with the endpoint pattern, stored in
+ * the {@link QueryCount#REQUEST_ATTRIBUTE} request attribute, and logged as a warning
+ * when a request exceeds the statement budget.
+ * Work done on other threads, such as streamed response bodies, is not counted.
+ */
+@Component
+public class PersistenceStatsFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceStatsFilter.class);
+    private static final String API_PREFIX = "/api/";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+    
+    @Value("${activation.persistence.instrumentation.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.persistence.statement-budget:10}")
+    private long statementBudget;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCount before = QueryCount.current();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCount count = QueryCount.current().since(before);
+            request.setAttribute(QueryCount.REQUEST_ATTRIBUTE, count);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+            PersistenceInstrumentation.record(meterRegistry, PersistenceInstrumentation.REQUEST_METRICS, count, "method", request.getMethod(), "uri", uri);
+            if (count.getStatements() > statementBudget) {
+                logger.warn("Statement budget exceeded: method={} uri={} statements={} budget={} rows={} jdbc_ms={}",
+                    request.getMethod(), uri, count.getStatements(), statementBudget, count.getRows(),
+                    TimeUnit.NANOSECONDS.toMillis(count.getJdbcNanos()));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Number of SQL statements, rows fetched and JDBC time.
+ * Every thread keeps running totals, updated by {@link InstrumentedDataSource};
+ * the cost of a request or repository call is the difference between the
+ * totals taken before and after it.
+ */
+public final class QueryCount {
+    
+    /** Request attribute holding the {@link QueryCount} of an API request once it completes. */
+    public static final String REQUEST_ATTRIBUTE = QueryCount.class.getName();
+    
+    private static final ThreadLocal<Totals> TOTALS = ThreadLocal.withInitial(Totals::new);
+    
+    private final long statements;
+    private final long rows;
+    private final long jdbcNanos;
+    
+    // Constructor with parameters
+    public QueryCount(long statements, long rows, long jdbcNanos) {
+        this.statements = statements;
+        this.rows = rows;
+        this.jdbcNanos = jdbcNanos;
+    }
+    
+    /**
+     * Returns the running totals of the current thread.
+     * 
+     * @return the totals so far
+     */
+    public static QueryCount current() {
+        Totals totals = TOTALS.get();
+        return new QueryCount(totals.statements, totals.rows, totals.jdbcNanos);
+    }
+    
+    static void recordStatement(long nanos) {
+        Totals totals = TOTALS.get();
+        totals.statements++;
+        totals.jdbcNanos += nanos;
+    }
+    
+    static void recordRow() {
+        TOTALS.get().rows++;
+    }
+    
+    /**
+     * Returns the counts accumulated since an earlier snapshot.
+     * 
+     * @param earlier the earlier snapshot of the same thread
+     * @return the difference
+     */
+    public QueryCount since(QueryCount earlier) {
+        return new QueryCount(statements - earlier.statements, rows - earlier.rows, jdbcNanos - earlier.jdbcNanos);
+    }
+    
+    public long getStatements() {
+        return statements;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "QueryCount{" +
+                "statements=" + statements +
+                ", rows=" + rows +
+                ", jdbcNanos=" + jdbcNanos +
+                '}';
+    }
+    
+    private static final class Totals {
+        private long statements;
+        private long rows;
+        private long jdbcNanos;
+    }
+}
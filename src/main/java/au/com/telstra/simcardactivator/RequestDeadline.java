@@ -0,0 +1,81 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Deadline of the API request on the current thread, held in a thread-local.
+ * Set by {@link RequestDeadlineFilter} from the caller's timeout header or the
+ * server-side budget. Work that only makes sense while the caller is still waiting
+ * checks the remaining budget first, and outbound calls bound their timeouts by it.
+ * Outside an API request, for example on import or scheduler threads, there is no
+ * deadline and the remaining budget is unlimited.
+ */
+public final class RequestDeadline {
+    
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+    
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    
+    private final long deadlineNanos;
+    
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+    
+    /**
+     * Starts a deadline on the current thread.
+     * 
+     * @param budgetMillis the time the caller is prepared to wait, in milliseconds
+     */
+    static void start(long budgetMillis) {
+        CURRENT.set(new RequestDeadline(System.nanoTime() + budgetMillis * 1_000_000));
+    }
+    
+    static void clear() {
+        CURRENT.remove();
+    }
+    
+    /**
+     * Checks whether the current thread has a deadline.
+     * 
+     * @return true inside an API request with a deadline
+     */
+    public static boolean isSet() {
+        return CURRENT.get() != null;
+    }
+    
+    /**
+     * Returns the time left before the current deadline.
+     * 
+     * @return the remaining milliseconds, negative once passed, or {@link Long#MAX_VALUE} without a deadline
+     */
+    public static long remainingMillis() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.floorDiv(deadline.deadlineNanos - System.nanoTime(), 1_000_000L);
+    }
+    
+    /**
+     * Checks whether the current deadline has passed.
+     * 
+     * @return true if there is a deadline and it has passed
+     */
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+    
+    /**
+     * Bounds a timeout by the remaining budget.
+     * 
+     * @param timeoutMillis the configured timeout, or zero or less for none
+     * @return the smaller of the timeout and the remaining budget, at least one millisecond
+     */
+    public static int boundTimeout(int timeoutMillis) {
+        long remaining = remainingMillis();
+        if (remaining == Long.MAX_VALUE) {
+            return timeoutMillis;
+        }
+        long bounded = timeoutMillis > 0 ? Math.min(timeoutMillis, remaining) : remaining;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bounded));
+    }
+}
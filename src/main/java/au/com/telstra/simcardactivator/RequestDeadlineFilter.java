@@ -0,0 +1,69 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Gives every API request a deadline.
+ * Callers state how long they will wait in the X-Request-Timeout-Ms header; without
+ * it the server-side default budget applies. Budgets are capped at the configured
+ * maximum, so a caller cannot ask the service to hold work for longer.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineFilter.class);
+    private static final String API_PREFIX = "/api/";
+    
+    @Value("${activation.deadline.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.deadline.default-budget-ms:10000}")
+    private long defaultBudgetMillis;
+    
+    @Value("${activation.deadline.max-budget-ms:30000}")
+    private long maxBudgetMillis;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestDeadline.start(Math.min(budgetMillis(request.getHeader(RequestDeadline.TIMEOUT_HEADER)), maxBudgetMillis));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+    
+    /**
+     * Reads the caller's budget from the timeout header.
+     * 
+     * @param header the header value, if present
+     * @return the budget in milliseconds
+     */
+    private long budgetMillis(String header) {
+        if (header == null || header.trim().isEmpty()) {
+            return defaultBudgetMillis;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring invalid {} header: {}", RequestDeadline.TIMEOUT_HEADER, header);
+            return defaultBudgetMillis;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Per-request stage timings, held in a thread-local for the duration of an API request.
+ * Stages are accumulated into small fixed arrays, so recording a stage costs two
+ * {@link System#nanoTime()} calls and a thread-local lookup. Outside a timed request,
+ * for example on import worker threads, recording is a no-op.
+ */
+public final class RequestTiming {
+    
+    static final String VALIDATE = "validate";
+    static final String FORWARD = "forward";
+    static final String COALESCE = "coalesce";
+    static final String LOOKUP = "lookup";
+    static final String ACTUATOR = "actuator";
+    static final String SAVE = "save";
+    static final String TOTAL = "total";
+    
+    private static final int MAX_STAGES = 8;
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    
+    private final long startNanos = System.nanoTime();
+    private final String[] stages = new String[MAX_STAGES];
+    private final long[] stageNanos = new long[MAX_STAGES];
+    private int stageCount;
+    
+    private RequestTiming() {}
+    
+    /**
+     * Starts timing a request on the current thread.
+     * 
+     * @return the request timing
+     */
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+    
+    /**
+     * Returns the timing of the request on the current thread.
+     * 
+     * @return the request timing, or null outside a timed request
+     */
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+    
+    static void clear() {
+        CURRENT.remove();
+    }
+    
+    /**
+     * Marks the start of a stage.
+     * 
+     * @return the start time to pass to {@link #end}
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+    
+    /**
+     * Adds the time since the given start to a stage of the current request.
+     * 
+     * @param stage the stage name
+     * @param startNanos the value returned by {@link #begin()}
+     */
+    public static void end(String stage, long startNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(stage, System.nanoTime() - startNanos);
+        }
+    }
+    
+    private void add(String stage, long nanos) {
+        for (int i = 0; i < stageCount; i++) {
+            if (stages[i].equals(stage)) {
+                stageNanos[i] += nanos;
+                return;
+            }
+        }
+        if (stageCount < MAX_STAGES) {
+            stages[stageCount] = stage;
+            stageNanos[stageCount] = nanos;
+            stageCount++;
+        }
+    }
+    
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+    
+    /**
+     * Formats the stages and the total so far as a Server-Timing header value,
+     * for example {@code lookup;dur=1.25, actuator;dur=40.5, total;dur=43.1}.
+     * 
+     * @return the header value
+     */
+    public String toServerTiming() {
+        StringBuilder builder = new StringBuilder(32 * (stageCount + 1));
+        for (int i = 0; i < stageCount; i++) {
+            builder.append(stages[i]).append(";dur=").append(toMillis(stageNanos[i])).append(", ");
+        }
+        return builder.append(TOTAL).append(";dur=").append(toMillis(elapsedNanos())).toString();
+    }
+    
+    /**
+     * Formats the stages as {@code stage=millis} pairs for the slow-request log.
+     * 
+     * @return the stage breakdown
+     */
+    public String toLogFields() {
+        StringBuilder builder = new StringBuilder(24 * stageCount);
+        for (int i = 0; i < stageCount; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(stages[i]).append("_ms=").append(toMillis(stageNanos[i]));
+        }
+        return builder.toString();
+    }
+    
+    // Milliseconds with microsecond resolution
+    private static double toMillis(long nanos) {
+        return (nanos / 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,55 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times API requests stage by stage.
+ * The stages are reported in a Server-Timing header by {@link ServerTimingAdvice}, and
+ * requests slower than the configured threshold are logged on a single line with their
+ * stage breakdown, so slow activations can be attributed to the lookup, the actuator or the save.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimingFilter.class);
+    private static final String API_PREFIX = "/api/";
+    
+    @Value("${activation.timing.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.timing.slow-request-threshold-ms:1000}")
+    private long slowRequestThresholdMillis;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTiming.clear();
+            long elapsedNanos = timing.elapsedNanos();
+            if (elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMillis)) {
+                logger.warn("Slow request: method={} path={} status={} total_ms={} {}",
+                    request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), timing.toLogFields());
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package au.com.telstra.simcardactivator;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -7,8 +8,17 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
     
+    @Value("${actuator.connect-timeout-ms:2000}")
+    private int connectTimeoutMillis;
+    
+    @Value("${actuator.read-timeout-ms:10000}")
+    private int readTimeoutMillis;
+    
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        DeadlineAwareRequestFactory requestFactory = new DeadlineAwareRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMillis);
+        requestFactory.setReadTimeout(readTimeoutMillis);
+        return new RestTemplate(requestFactory);
     }
 }
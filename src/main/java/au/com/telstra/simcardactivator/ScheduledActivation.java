@@ -0,0 +1,123 @@
+package au.com.telstra.simcardactivator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An activation requested for a future time.
+ * Rows stay PENDING until the scheduler releases them to the activation service.
+ */
+@Entity
+@Table(name = "scheduled_activations",
+       indexes = {
+           @Index(name = "idx_scheduled_status", columnList = "status")
+       })
+public class ScheduledActivation {
+    
+    public enum Status { PENDING, ACTIVATED, FAILED }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "iccid", nullable = false, length = 50)
+    private String iccid;
+    
+    @Column(name = "customer_email", nullable = false, length = 255)
+    private String customerEmail;
+    
+    @Column(name = "activate_at", nullable = false)
+    private LocalDateTime activateAt;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    // Default constructor
+    public ScheduledActivation() {
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Constructor with parameters
+    public ScheduledActivation(String iccid, String customerEmail, LocalDateTime activateAt) {
+        this();
+        this.iccid = iccid;
+        this.customerEmail = customerEmail;
+        this.activateAt = activateAt;
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getIccid() {
+        return iccid;
+    }
+    
+    public void setIccid(String iccid) {
+        this.iccid = iccid;
+    }
+    
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+    
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+    
+    public LocalDateTime getActivateAt() {
+        return activateAt;
+    }
+    
+    public void setActivateAt(LocalDateTime activateAt) {
+        this.activateAt = activateAt;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "ScheduledActivation{" +
+                "id=" + id +
+                ", iccid='" + iccid + '\'' +
+                ", customerEmail='" + customerEmail + '\'' +
+                ", activateAt=" + activateAt +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface ScheduledActivationRepository extends JpaRepository<ScheduledActivation, Long> {
+    
+    /**
+     * Stream the id and activation time of every scheduled activation in the given status,
+     * used to reload the timing wheel. Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select s.id as id, s.activateAt as activateAt from ScheduledActivation s where s.status = :status")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ScheduledActivationTimer> streamTimersByStatus(@Param("status") ScheduledActivation.Status status);
+    
+    /**
+     * Move a scheduled activation from one status to another with a single bulk statement
+     */
+    @Modifying
+    @Query("update ScheduledActivation s set s.status = :status, s.completedAt = :completedAt "
+         + "where s.id = :id and s.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") ScheduledActivation.Status expected,
+                     @Param("status") ScheduledActivation.Status status,
+                     @Param("completedAt") LocalDateTime completedAt);
+}
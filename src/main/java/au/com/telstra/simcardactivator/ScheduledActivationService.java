@@ -0,0 +1,312 @@
+package au.com.telstra.simcardactivator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Activations requested for a future time.
+ * Each request is persisted as a PENDING row and its id is placed on an in-process
+ * hashed timing wheel. A ticker advances the wheel and releases due activations to
+ * the activation service at no more than the configured rate, so a large batch
+ * scheduled for the same moment is spread out instead of hitting the actuator at once.
+ * Pending rows are loaded back onto the wheel at startup; any that fell due while
+ * the service was down are released straight away, at the same rate. An id is on the
+ * wheel at most once, so a row scheduled while the startup load is running is not
+ * released twice. Releases that are rejected or fail are retried with exponential
+ * backoff, and the row is marked FAILED once max-attempts releases have not succeeded.
+ */
+@Service
+public class ScheduledActivationService implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledActivationService.class);
+    private static final long MILLIS_PER_SECOND = 1000;
+    
+    @Value("${activation.schedule.tick-ms:100}")
+    private long tickMillis;
+    
+    @Value("${activation.schedule.wheel-size:4096}")
+    private int wheelSize;
+    
+    @Value("${activation.schedule.release-rate:200}")
+    private double releaseRate;
+    
+    @Value("${activation.schedule.release-threads:8}")
+    private int releaseThreads;
+    
+    @Value("${activation.schedule.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+    
+    @Value("${activation.schedule.max-retry-delay-ms:60000}")
+    private long maxRetryDelayMillis;
+    
+    @Value("${activation.schedule.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Autowired
+    private ScheduledActivationRepository repository;
+    
+    @Autowired
+    private SimCardActivationService activationService;
+    
+    @Autowired
+    private ClusterRouter clusterRouter;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final AtomicInteger releasing = new AtomicInteger();
+    
+    // Ids currently on the wheel, its ready queue or being released; guarded by itself
+    private final LongHashSet onWheel = new LongHashSet();
+    
+    // Release attempts made so far, for ids that have been retried
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+    
+    private final AtomicBoolean started = new AtomicBoolean();
+    
+    private HashedTimingWheel wheel;
+    
+    private Counter releasedCounter;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private ScheduledExecutorService ticker;
+    
+    private ExecutorService releaseExecutor;
+    
+    // Release permits accrued since the last tick; only touched by the ticker thread
+    private double permits;
+    
+    private long lastTickMillis;
+    
+    @PostConstruct
+    void init() {
+        wheel = new HashedTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activation-timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        releaseExecutor = Executors.newFixedThreadPool(releaseThreads, runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-activation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("activation.schedule.pending", wheel, HashedTimingWheel::pendingCount)
+            .description("Scheduled activations not yet due")
+            .register(meterRegistry);
+        Gauge.builder("activation.schedule.ready", wheel, HashedTimingWheel::readyCount)
+            .description("Due scheduled activations waiting to be released")
+            .register(meterRegistry);
+        releasedCounter = Counter.builder("activation.schedule.released")
+            .description("Timers taken off the wheel and handed to the release workers, retries included")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+        releaseExecutor.shutdownNow();
+    }
+    
+    /**
+     * Loads pending scheduled activations onto the timing wheel and starts the ticker.
+     * Rows already on the wheel, because they were scheduled while the load was running, are skipped.
+     * 
+     * @param args the application arguments
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        long loadStarted = System.nanoTime();
+        long count = 0;
+        try (Stream<ScheduledActivationTimer> timers = repository.streamTimersByStatus(ScheduledActivation.Status.PENDING)) {
+            for (ScheduledActivationTimer timer : (Iterable<ScheduledActivationTimer>) timers::iterator) {
+                if (enqueue(timer.getId(), toEpochMillis(timer.getActivateAt()))) {
+                    count++;
+                }
+            }
+        }
+        logger.info("Loaded {} pending scheduled activations in {} ms", count, (System.nanoTime() - loadStarted) / 1_000_000);
+        if (started.compareAndSet(false, true)) {
+            lastTickMillis = System.currentTimeMillis();
+            ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Persists an activation for a future time and places it on the timing wheel.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param customerEmail the customer email
+     * @param activateAt the time at which to activate
+     * @return the persisted scheduled activation
+     */
+    public ScheduledActivation schedule(String iccid, String customerEmail, LocalDateTime activateAt) {
+        ScheduledActivation scheduled = repository.save(new ScheduledActivation(iccid, customerEmail, activateAt));
+        enqueue(scheduled.getId(), toEpochMillis(activateAt));
+        logger.info("Scheduled activation {} for ICCID {} at {}", scheduled.getId(), iccid, activateAt);
+        return scheduled;
+    }
+    
+    /**
+     * Retrieves a scheduled activation by ID.
+     * 
+     * @param id the scheduled activation ID
+     * @return the scheduled activation if found
+     */
+    public Optional<ScheduledActivation> getScheduledActivation(Long id) {
+        return repository.findById(id);
+    }
+    
+    /**
+     * Places an id on the timing wheel unless it is already there.
+     * 
+     * @param id the scheduled activation ID
+     * @param deadlineMillis the release time in epoch milliseconds
+     * @return true if the id was added
+     */
+    private boolean enqueue(long id, long deadlineMillis) {
+        synchronized (onWheel) {
+            if (!onWheel.add(id)) {
+                return false;
+            }
+        }
+        wheel.schedule(id, deadlineMillis);
+        return true;
+    }
+    
+    /**
+     * Advances the wheel and hands due activations to the release workers within the rate limit.
+     */
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            wheel.advance(now);
+            // Accrue at most one tick's worth of permits, so idle periods do not turn into bursts
+            double perTick = releaseRate * tickMillis / MILLIS_PER_SECOND;
+            permits = Math.min(Math.max(1.0, perTick), permits + releaseRate * (now - lastTickMillis) / MILLIS_PER_SECOND);
+            lastTickMillis = now;
+            // Keep the worker queue short; anything beyond stays on the wheel's ready queue
+            int capacity = releaseThreads * 2 - releasing.get();
+            int count = (int) Math.min(permits, capacity);
+            if (count > 0) {
+                permits -= wheel.pollReady(count, this::submit);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error advancing the activation timing wheel: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void submit(long id) {
+        releasedCounter.increment();
+        releasing.incrementAndGet();
+        releaseExecutor.execute(() -> {
+            try {
+                release(id);
+            } finally {
+                releasing.decrementAndGet();
+            }
+        });
+    }
+    
+    /**
+     * Activates one due scheduled activation and records its outcome.
+     * 
+     * @param id the scheduled activation ID
+     */
+    private void release(long id) {
+        try {
+            Optional<ScheduledActivation> scheduled = repository.findById(id);
+            if (!scheduled.isPresent() || scheduled.get().getStatus() != ScheduledActivation.Status.PENDING) {
+                finish(id);
+                return;
+            }
+            ScheduledActivation activation = scheduled.get();
+            // In cluster mode the ICCID's owner activates it, so duplicate detection holds cluster-wide
+            Boolean ownerResult = clusterRouter.activateOnOwner(activation.getIccid(), activation.getCustomerEmail());
+            boolean success = ownerResult != null ? ownerResult
+                : activationService.activateSimCard(activation.getIccid(), activation.getCustomerEmail());
+            ScheduledActivation.Status status = success ? ScheduledActivation.Status.ACTIVATED : ScheduledActivation.Status.FAILED;
+            transactionTemplate.execute(tx -> repository.updateStatus(
+                id, ScheduledActivation.Status.PENDING, status, LocalDateTime.now()));
+            finish(id);
+            logger.info("Released scheduled activation {} for ICCID {}: {}", id, activation.getIccid(), status);
+        } catch (ActivationRejectedException e) {
+            // The actuator is saturated; back off rather than recording a failure straight away
+            retry(id, e);
+        } catch (RuntimeException e) {
+            logger.error("Error releasing scheduled activation {}: {}", id, e.getMessage(), e);
+            retry(id, e);
+        }
+    }
+    
+    /**
+     * Puts a release that did not succeed back on the wheel after an exponential backoff,
+     * or marks the row FAILED once max-attempts releases have been made.
+     * 
+     * @param id the scheduled activation ID
+     * @param cause why the release did not succeed
+     */
+    private void retry(long id, RuntimeException cause) {
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        if (attempt >= maxAttempts) {
+            logger.warn("Giving up on scheduled activation {} after {} attempts: {}", id, attempt, cause.getMessage());
+            try {
+                transactionTemplate.execute(tx -> repository.updateStatus(
+                    id, ScheduledActivation.Status.PENDING, ScheduledActivation.Status.FAILED, LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                // Left PENDING, so the row is picked up again at the next startup
+                logger.error("Error marking scheduled activation {} as failed: {}", id, e.getMessage(), e);
+            }
+            finish(id);
+            return;
+        }
+        long delay = Math.min(maxRetryDelayMillis, retryDelayMillis << Math.min(attempt - 1, 20));
+        logger.debug("Scheduled activation {} not released, retrying in {} ms", id, delay);
+        // Still counted in onWheel, so this cannot add a second timer for the id
+        wheel.schedule(id, System.currentTimeMillis() + delay);
+    }
+    
+    private void finish(long id) {
+        attempts.remove(id);
+        synchronized (onWheel) {
+            onWheel.remove(id);
+        }
+    }
+    
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
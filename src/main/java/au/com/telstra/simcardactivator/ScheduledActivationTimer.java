@@ -0,0 +1,13 @@
+package au.com.telstra.simcardactivator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a pending scheduled activation, carrying only what the timing wheel needs.
+ */
+public interface ScheduledActivationTimer {
+    
+    Long getId();
+    
+    LocalDateTime getActivateAt();
+}
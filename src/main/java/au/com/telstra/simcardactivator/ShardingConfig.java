@@ -0,0 +1,108 @@
+package au.com.telstra.simcardactivator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single application DataSource with one that routes each connection
+ * to the shard bound by {@link ActivationShards}.
+ * Every shard gets its own connection pool and is migrated with Flyway before the
+ * persistence unit starts, so Hibernate only validates the schema. On a new shard
+ * the record id sequence is moved to the shard's own id range.
+ */
+@Configuration
+@ConditionalOnProperty(name = "activation.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+    
+    @Value("${spring.datasource.username:sa}")
+    private String username;
+    
+    @Value("${spring.datasource.password:}")
+    private String password;
+    
+    @Value("${activation.sharding.pool-size:10}")
+    private int poolSize;
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ActivationShards shards) {
+        List<String> urls = shards.getUrls();
+        Map<Object, Object> targets = new HashMap<>();
+        List<HikariDataSource> pools = new ArrayList<>(urls.size());
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(urls.get(shard))
+                .username(username)
+                .password(password)
+                .build();
+            pool.setPoolName("activation-shard-" + shard);
+            pool.setMaximumPoolSize(poolSize);
+            migrate(pool, shard);
+            targets.put(shard, pool);
+            pools.add(pool);
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(pools);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(pools.get(0));
+        routing.afterPropertiesSet();
+        logger.info("Routing activation records over {} shards", urls.size());
+        return routing;
+    }
+    
+    /**
+     * Applies the schema migrations to one shard and moves its id sequence to the shard's range.
+     * 
+     * @param pool the shard's connection pool
+     * @param shard the shard index
+     */
+    private void migrate(DataSource pool, int shard) {
+        Flyway.configure().dataSource(pool).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+        long firstId = ActivationShards.firstIdOf(shard);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sim_card_activation_records", Long.class);
+        if (shard > 0 && maxId != null && maxId < firstId) {
+            jdbcTemplate.execute("ALTER TABLE sim_card_activation_records ALTER COLUMN id RESTART WITH " + firstId);
+        }
+    }
+    
+    /**
+     * DataSource choosing the shard bound to the current thread, or shard 0 when none is bound.
+     */
+    static final class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+        
+        private final List<HikariDataSource> pools;
+        
+        ShardRoutingDataSource(List<HikariDataSource> pools) {
+            this.pools = pools;
+        }
+        
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return ActivationShards.currentShard();
+        }
+        
+        @Override
+        public void close() {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+}
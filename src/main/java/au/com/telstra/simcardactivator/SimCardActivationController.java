@@ -1,50 +1,157 @@
 package au.com.telstra.simcardactivator;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * REST controller for SIM card activation operations.
  * Provides endpoints for activating SIM cards and retrieving activation records.
  */
 @RestController
+@Lazy(false)
 @RequestMapping("/api")
 public class SimCardActivationController {
     
     private static final Logger logger = LoggerFactory.getLogger(SimCardActivationController.class);
     private static final String ICCID_REQUIRED_MESSAGE = "ICCID is required";
     private static final String EMAIL_REQUIRED_MESSAGE = "Customer email is required";
-    private static final String SUCCESS_MESSAGE = "SUCCESS";
+    static final String SUCCESS_MESSAGE = "SUCCESS";
     private static final String FAILURE_MESSAGE = "FAILURE";
-    private static final String ACTIVATION_RESULT_FORMAT = "Activation %s for ICCID: %s";
+    static final String ACTIVATION_RESULT_FORMAT = "Activation %s for ICCID: %s";
+    private static final String SCHEDULED_RESULT_FORMAT = "Activation SCHEDULED for ICCID: %s at %s";
+    private static final String SCHEDULED_LOCATION_PREFIX = "/api/activations/scheduled/";
     private static final String ERROR_PROCESSING_MESSAGE = "Error processing activation request: ";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final String DEFAULT_PAGE_SIZE = "100";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_PAGE_LINK_FORMAT = "<%s>; rel=\"next\"";
     
     @Autowired
     private SimCardActivationService activationService;
     
+    @Autowired
+    private ScheduledActivationService scheduledActivationService;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    @Autowired
+    private ActivationEventBroadcaster eventBroadcaster;
+    
+    @Autowired
+    private ClusterRouter clusterRouter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private ObjectWriter recordWriter;
+    
+    @PostConstruct
+    void init() {
+        recordWriter = objectMapper.writerFor(SimCardActivationRecord.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+    
     /**
      * Activates a SIM card.
+     * When an Idempotency-Key header is supplied, retries with the same key and
+     * body receive the stored response instead of activating again.
+     * In cluster mode, requests for ICCIDs owned by another node are forwarded
+     * to the owner together with their Idempotency-Key. An owner that cannot be connected
+     * to is bypassed and the ICCID is activated locally; an owner that times out gives 503.
+     * Requests with an activateAt time in the future are persisted and answered with
+     * 202 Accepted; the activation runs when that time arrives.
+     * The X-Request-Timeout-Ms header states how long the caller will wait; when too
+     * little of it remains to call the actuator, 504 is returned and nothing is recorded.
+     * When it runs out during the actuator call, 504 is returned and the activation is
+     * recorded as failed, since the actuator may already have acted.
      * 
      * @param request the activation request containing ICCID and customer email
+     * @param idempotencyKey the Idempotency-Key header, if present
+     * @param forwardedBy the forwarding peer, if the request came from another node
+     * @param forwardSignature the forwarding peer's signature, if the request came from another node
      * @return response indicating success or failure
      */
     @PostMapping("/activate")
-    public ResponseEntity<String> activateSimCard(@RequestBody SimCardActivationRequest request) {
+    public ResponseEntity<String> activateSimCard(
+            @RequestBody SimCardActivationRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+            @RequestHeader(value = ClusterRouter.SIGNATURE_HEADER, required = false) String forwardSignature) {
+        if (validateActivationRequest(request) == null) {
+            String owner = clusterRouter.forwardTarget(request.getIccid(), forwardedBy, forwardSignature);
+            if (owner != null) {
+                long forwardStarted = RequestTiming.begin();
+                ResponseEntity<String> forwarded = clusterRouter.forward(owner, request, idempotencyKey);
+                RequestTiming.end(RequestTiming.FORWARD, forwardStarted);
+                if (forwarded != null) {
+                    return forwarded;
+                }
+                logger.warn("Owner {} unreachable, activating ICCID {} locally", owner, request.getIccid());
+            }
+        }
+        if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
+            return processActivation(request);
+        }
+        return idempotencyStore.execute(idempotencyKey, fingerprint(request), () -> processActivation(request));
+    }
+    
+    /**
+     * Validates and performs an activation request.
+     * 
+     * @param request the activation request containing ICCID and customer email
+     * @return response indicating success or failure
+     */
+    private ResponseEntity<String> processActivation(SimCardActivationRequest request) {
         try {
             logger.info("Received activation request: {}", request);
             
             // Validate request
+            long validationStarted = RequestTiming.begin();
             ResponseEntity<String> validationError = validateActivationRequest(request);
+            RequestTiming.end(RequestTiming.VALIDATE, validationStarted);
             if (validationError != null) {
                 return validationError;
             }
             
+            // Defer activations requested for a future time
+            if (request.getActivateAt() != null && request.getActivateAt().isAfter(LocalDateTime.now())) {
+                ScheduledActivation scheduled = scheduledActivationService.schedule(
+                    request.getIccid(), request.getCustomerEmail(), request.getActivateAt());
+                return ResponseEntity.accepted()
+                    .location(URI.create(SCHEDULED_LOCATION_PREFIX + scheduled.getId()))
+                    .body(String.format(SCHEDULED_RESULT_FORMAT, request.getIccid(), request.getActivateAt()));
+            }
+            
             // Call the activation service
             boolean success = activationService.activateSimCard(request.getIccid(), request.getCustomerEmail());
             
@@ -54,6 +161,14 @@ public class SimCardActivationController {
             
             return ResponseEntity.ok(String.format(ACTIVATION_RESULT_FORMAT, result, request.getIccid()));
             
+        } catch (ActivationRejectedException e) {
+            logger.warn("Activation for ICCID {} rejected: {}", request.getIccid(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(e.getMessage());
+        } catch (DeadlineExceededException e) {
+            logger.warn("Activation for ICCID {} abandoned: {}", request.getIccid(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error processing activation request: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -61,6 +176,20 @@ public class SimCardActivationController {
         }
     }
     
+    /**
+     * Builds the request fingerprint used to detect Idempotency-Key reuse with a different body.
+     * 
+     * @param request the activation request
+     * @return the request fingerprint
+     */
+    private String fingerprint(SimCardActivationRequest request) {
+        if (request == null) {
+            return "";
+        }
+        String fingerprint = request.getIccid() + "\n" + request.getCustomerEmail();
+        return request.getActivateAt() == null ? fingerprint : fingerprint + "\n" + request.getActivateAt();
+    }
+    
     /**
      * Validates the activation request.
      * 
@@ -87,36 +216,205 @@ public class SimCardActivationController {
     }
     
     /**
-     * Retrieves all activation records.
+     * Retrieves all activation records, those of one customer, those created since a time,
+     * or one page of an ICCID range.
+     * The customer email is matched ignoring case and surrounding whitespace.
+     * Records created since a time are read from the hot and archive tables; the full
+     * list covers the hot table only.
+     * An ICCID range is given as iccidPrefix, or as iccidFrom and iccidTo (both inclusive);
+     * its records are returned in ICCID order one page at a time, with a Link header
+     * pointing at the next page when there is one.
+     * The full list is streamed from the database straight to the response, so it
+     * is never held in memory as a whole.
      * 
-     * @return list of all activation records
+     * @param customerEmail optional customer email to filter by
+     * @param iccidPrefix optional ICCID prefix to filter by
+     * @param iccidFrom optional lowest ICCID of the range to filter by
+     * @param iccidTo optional highest ICCID of the range to filter by
+     * @param since optional earliest activation timestamp to filter by
+     * @param page the zero-based page number of an ICCID range
+     * @param size the page size of an ICCID range
+     * @return list of activation records
      */
-    @GetMapping("/activations")
-    public ResponseEntity<List<SimCardActivationRecord>> getAllActivations() {
+    @GetMapping(value = "/activations", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAllActivations(
+            @RequestParam(value = "customerEmail", required = false) String customerEmail,
+            @RequestParam(value = "iccidPrefix", required = false) String iccidPrefix,
+            @RequestParam(value = "iccidFrom", required = false) String iccidFrom,
+            @RequestParam(value = "iccidTo", required = false) String iccidTo,
+            @RequestParam(value = "since", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = DEFAULT_PAGE_SIZE) int size) {
         try {
+            IccidRange iccidRange = IccidRange.of(iccidPrefix, iccidFrom, iccidTo);
+            if (iccidRange != null) {
+                if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+                    logger.warn("Invalid page {} of size {} requested", page, size);
+                    return ResponseEntity.badRequest().build();
+                }
+                logger.info("Retrieving activation records for ICCID range {}, page {}", iccidRange, page);
+                Slice<SimCardActivationRecord> records = activationService.getActivationRecordsByIccidRange(iccidRange, page, size);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+                if (records.hasNext()) {
+                    String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("page", page + 1)
+                        .toUriString();
+                    response.header(HttpHeaders.LINK, String.format(NEXT_PAGE_LINK_FORMAT, next));
+                }
+                return response.body(out -> writeRecords(out, records::forEach));
+            }
+            if (customerEmail != null) {
+                logger.info("Retrieving activation records for customer: {}", customerEmail);
+                List<SimCardActivationRecord> records = activationService.getActivationRecordsByCustomerEmail(customerEmail);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeRecords(out, records::forEach));
+            }
+            if (since != null) {
+                logger.info("Retrieving activation records since: {}", since);
+                List<SimCardActivationRecord> records = activationService.getActivationRecordsSince(since);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> writeRecords(out, records::forEach));
+            }
             logger.info("Retrieving all activation records");
-            List<SimCardActivationRecord> records = activationService.getAllActivationRecords();
-            return ResponseEntity.ok(records);
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeRecords(out, activationService::forEachActivationRecord));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid ICCID range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error retrieving all activations: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    /**
+     * Writes activation records to the response as a JSON array, one record at a time.
+     * 
+     * @param out the response output stream
+     * @param records the source of the records to write
+     * @throws IOException if the response cannot be written
+     */
+    private void writeRecords(OutputStream out, Consumer<Consumer<SimCardActivationRecord>> records) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            records.accept(record -> {
+                try {
+                    recordWriter.writeValue(generator, record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            logger.warn("Error writing activation records: {}", e.getMessage());
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Retrieves activation statistics.
+     * Served from an in-memory aggregate, so the cost does not grow with the table size.
+     * With an ICCID prefix or range, the numbers of activated and not activated SIMs
+     * in that range are included, counted with indexed range queries.
+     * 
+     * @param customerEmail optional customer email to include a per-customer count for
+     * @param iccidPrefix optional ICCID prefix to include range counts for
+     * @param iccidFrom optional lowest ICCID of the range to include counts for
+     * @param iccidTo optional highest ICCID of the range to include counts for
+     * @return the activation statistics
+     */
+    @GetMapping("/activations/stats")
+    public ResponseEntity<ActivationStatisticsResponse> getActivationStatistics(
+            @RequestParam(value = "customerEmail", required = false) String customerEmail,
+            @RequestParam(value = "iccidPrefix", required = false) String iccidPrefix,
+            @RequestParam(value = "iccidFrom", required = false) String iccidFrom,
+            @RequestParam(value = "iccidTo", required = false) String iccidTo) {
+        try {
+            logger.info("Retrieving activation statistics");
+            IccidRange iccidRange = IccidRange.of(iccidPrefix, iccidFrom, iccidTo);
+            return ResponseEntity.ok(activationService.getActivationStatistics(customerEmail, iccidRange));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid ICCID range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error retrieving activation statistics: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Streams activation results as Server-Sent Events.
+     * Subscribes to one ICCID, one customer email, or all activations when neither is given.
+     * 
+     * @param iccid optional ICCID to follow
+     * @param customerEmail optional customer email to follow
+     * @return the event stream
+     */
+    @GetMapping(value = "/activations/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActivationEvents(
+            @RequestParam(value = "iccid", required = false) String iccid,
+            @RequestParam(value = "customerEmail", required = false) String customerEmail) {
+        logger.info("Subscribing to activation events for ICCID: {}, customer: {}", iccid, customerEmail);
+        return eventBroadcaster.subscribe(iccid, customerEmail);
+    }
+    
+    /**
+     * Retrieves a scheduled activation and its status.
+     * 
+     * @param id the scheduled activation ID
+     * @return the scheduled activation if found
+     */
+    @GetMapping("/activations/scheduled/{id}")
+    public ResponseEntity<ScheduledActivation> getScheduledActivation(@PathVariable Long id) {
+        try {
+            logger.info("Retrieving scheduled activation: {}", id);
+            Optional<ScheduledActivation> scheduled = scheduledActivationService.getScheduledActivation(id);
+            if (scheduled.isPresent()) {
+                return ResponseEntity.ok(scheduled.get());
+            }
+            logger.warn("Scheduled activation not found: {}", id);
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            logger.error("Error retrieving scheduled activation {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Retrieves an activation record by ICCID.
+     * Supports conditional requests: when the If-None-Match or If-Modified-Since header
+     * shows the client copy is current, 304 is returned from a version lookup alone.
      * 
      * @param iccid the SIM card ICCID
-     * @return the activation record if found
+     * @param webRequest the current request, used to evaluate conditional headers
+     * @return the activation record if found, or null once a 304 has been prepared
      */
     @GetMapping("/activations/{iccid}")
-    public ResponseEntity<SimCardActivationRecord> getActivationByIccid(@PathVariable String iccid) {
+    public ResponseEntity<SimCardActivationRecord> getActivationByIccid(
+            @PathVariable String iccid,
+            WebRequest webRequest) {
         try {
             logger.info("Retrieving activation record for ICCID: {}", iccid);
+            
+            if (isConditional(webRequest)) {
+                Optional<SimCardActivationVersion> version = activationService.getActivationVersionByIccid(iccid);
+                if (version.isPresent() && isNotModified(webRequest, version.get())) {
+                    logger.debug("Activation record for ICCID {} not modified", iccid);
+                    return null;
+                }
+            }
+            
             Optional<SimCardActivationRecord> record = activationService.getActivationRecordByIccid(iccid);
             
             if (record.isPresent()) {
-                return ResponseEntity.ok(record.get());
+                SimCardActivationRecord activationRecord = record.get();
+                return withValidators(ResponseEntity.ok(), activationRecord.getId(), activationRecord.getVersion(),
+                    activationRecord.getActivationTimestamp())
+                    .body(activationRecord);
             } else {
                 logger.warn("Activation record not found for ICCID: {}", iccid);
                 return ResponseEntity.notFound().build();
@@ -129,14 +427,27 @@ public class SimCardActivationController {
     
     /**
      * Retrieves a SIM card record by ID.
+     * Supports conditional requests in the same way as the ICCID lookup.
      * 
      * @param simCardId the SIM card record ID
-     * @return the SIM card response if found
+     * @param webRequest the current request, used to evaluate conditional headers
+     * @return the SIM card response if found, or null once a 304 has been prepared
      */
     @GetMapping("/simcard/{simCardId}")
-    public ResponseEntity<SimCardResponse> getSimCardById(@PathVariable Long simCardId) {
+    public ResponseEntity<SimCardResponse> getSimCardById(
+            @PathVariable Long simCardId,
+            WebRequest webRequest) {
         try {
             logger.info("Retrieving SIM card record for ID: {}", simCardId);
+            
+            if (isConditional(webRequest)) {
+                Optional<SimCardActivationVersion> version = activationService.getActivationVersionById(simCardId);
+                if (version.isPresent() && isNotModified(webRequest, version.get())) {
+                    logger.debug("SIM card record for ID {} not modified", simCardId);
+                    return null;
+                }
+            }
+            
             Optional<SimCardActivationRecord> record = activationService.getActivationRecordById(simCardId);
             
             if (record.isPresent()) {
@@ -146,7 +457,9 @@ public class SimCardActivationController {
                     activationRecord.getCustomerEmail(),
                     activationRecord.isActive()
                 );
-                return ResponseEntity.ok(response);
+                return withValidators(ResponseEntity.ok(), activationRecord.getId(), activationRecord.getVersion(),
+                    activationRecord.getActivationTimestamp())
+                    .body(response);
             } else {
                 logger.warn("Activation record not found for ID: {}", simCardId);
                 return ResponseEntity.notFound().build();
@@ -156,4 +469,71 @@ public class SimCardActivationController {
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    /**
+     * Adds the ETag and, when the record has a timestamp, the Last-Modified header.
+     * 
+     * @param builder the response builder
+     * @param id the record ID
+     * @param version the record version
+     * @param timestamp the activation timestamp, may be null
+     * @return the builder
+     */
+    private ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, Long id, Long version,
+            LocalDateTime timestamp) {
+        builder.eTag(toETag(id, version));
+        long lastModified = toEpochMillis(timestamp);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+    
+    /**
+     * Checks whether the request carries If-None-Match or If-Modified-Since.
+     * 
+     * @param webRequest the current request
+     * @return true if the request is conditional
+     */
+    private boolean isConditional(WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+            || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+    
+    /**
+     * Checks the conditional headers against the current record version. When the
+     * client copy is current, the response is already set up as a 304 carrying the
+     * ETag and, if known, Last-Modified. If-Modified-Since is only used when the
+     * request has no If-None-Match.
+     * 
+     * @param webRequest the current request
+     * @param version the current record version
+     * @return true if the client copy is still current
+     */
+    private boolean isNotModified(WebRequest webRequest, SimCardActivationVersion version) {
+        return webRequest.checkNotModified(toETag(version.getId(), version.getVersion()),
+            toEpochMillis(version.getActivationTimestamp()));
+    }
+    
+    /**
+     * Creates a strong ETag from the record ID and version.
+     * 
+     * @param id the record ID
+     * @param version the record version
+     * @return the quoted ETag value
+     */
+    private String toETag(Long id, Long version) {
+        return "\"" + id + "-" + (version != null ? version : 0L) + "\"";
+    }
+    
+    /**
+     * Converts an activation timestamp to epoch milliseconds for the Last-Modified header.
+     * A negative value tells {@link WebRequest#checkNotModified(String, long)} there is none.
+     * 
+     * @param timestamp the activation timestamp
+     * @return epoch milliseconds, or -1 when no timestamp is available
+     */
+    private long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
 }
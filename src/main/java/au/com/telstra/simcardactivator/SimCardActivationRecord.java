@@ -1,10 +1,17 @@
 package au.com.telstra.simcardactivator;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sim_card_activation_records")
+@Table(name = "sim_card_activation_records",
+       indexes = {
+           @Index(name = "idx_activation_iccid", columnList = "iccid"),
+           @Index(name = "idx_activation_month", columnList = "activation_month"),
+           @Index(name = "idx_activation_email_hash", columnList = "customer_email_hash")
+       })
 public class SimCardActivationRecord {
     
     @Id
@@ -17,6 +24,9 @@ public class SimCardActivationRecord {
     @Column(name = "customer_email", nullable = false, length = 255)
     private String customerEmail;
     
+    @Column(name = "customer_email_hash")
+    private Long customerEmailHash;
+    
     @Column(name = "active", nullable = false)
     private boolean active;
     
@@ -26,9 +36,16 @@ public class SimCardActivationRecord {
     @Column(name = "actuator_response", length = 1000)
     private String actuatorResponse;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
+    @Column(name = "activation_month", nullable = false)
+    private int activationMonth;
+    
     // Default constructor
     public SimCardActivationRecord() {
-        this.activationTimestamp = LocalDateTime.now();
+        setActivationTimestamp(LocalDateTime.now());
     }
     
     // Constructor with parameters
@@ -64,6 +81,15 @@ public class SimCardActivationRecord {
         this.customerEmail = customerEmail;
     }
     
+    @JsonIgnore
+    public Long getCustomerEmailHash() {
+        return customerEmailHash;
+    }
+    
+    public void setCustomerEmailHash(Long customerEmailHash) {
+        this.customerEmailHash = customerEmailHash;
+    }
+    
     public boolean isActive() {
         return active;
     }
@@ -78,6 +104,7 @@ public class SimCardActivationRecord {
     
     public void setActivationTimestamp(LocalDateTime activationTimestamp) {
         this.activationTimestamp = activationTimestamp;
+        updateActivationMonth();
     }
     
     public String getActuatorResponse() {
@@ -88,6 +115,45 @@ public class SimCardActivationRecord {
         this.actuatorResponse = actuatorResponse;
     }
     
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    @JsonIgnore
+    public int getActivationMonth() {
+        return activationMonth;
+    }
+    
+    public void setActivationMonth(int activationMonth) {
+        this.activationMonth = activationMonth;
+    }
+    
+    /**
+     * Derives the partition key (yyyyMM) from the activation timestamp.
+     */
+    @PrePersist
+    @PreUpdate
+    void updateActivationMonth() {
+        if (activationTimestamp != null) {
+            activationMonth = toActivationMonth(activationTimestamp);
+        }
+    }
+    
+    /**
+     * Converts a timestamp to its monthly partition key.
+     * 
+     * @param timestamp the activation timestamp
+     * @return the partition key in yyyyMM form
+     */
+    public static int toActivationMonth(LocalDateTime timestamp) {
+        return timestamp.getYear() * 100 + timestamp.getMonthValue();
+    }
+    
     @Override
     public String toString() {
         return "SimCardActivationRecord{" +
@@ -97,6 +163,7 @@ public class SimCardActivationRecord {
                 ", active=" + active +
                 ", activationTimestamp=" + activationTimestamp +
                 ", actuatorResponse='" + actuatorResponse + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
@@ -1,9 +1,19 @@
 package au.com.telstra.simcardactivator;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface SimCardActivationRepository extends JpaRepository<SimCardActivationRecord, Long> {
@@ -13,18 +23,47 @@ public interface SimCardActivationRepository extends JpaRepository<SimCardActiva
      */
     Optional<SimCardActivationRecord> findByIccid(String iccid);
     
+    /**
+     * Find the version projection of an activation record by ICCID
+     */
+    Optional<SimCardActivationVersion> findVersionByIccid(String iccid);
+    
+    /**
+     * Find the version projection of an activation record by ID
+     */
+    Optional<SimCardActivationVersion> findVersionById(Long id);
+    
     /**
      * Find all activation records for a customer email
      */
     List<SimCardActivationRecord> findByCustomerEmail(String customerEmail);
     
     /**
-     * Find all active SIM cards
+     * Find activation records whose normalised customer email has the given hash
+     */
+    List<SimCardActivationRecord> findByCustomerEmailHash(Long customerEmailHash);
+    
+    /**
+     * Find up to one batch of records still missing the customer email hash
+     */
+    @Query("select r.id as id, r.customerEmail as customerEmail from SimCardActivationRecord r "
+         + "where r.customerEmailHash is null")
+    List<CustomerEmailRow> findRowsWithoutEmailHash(Pageable pageable);
+    
+    /**
+     * Set the customer email hash of one record without bumping its version
+     */
+    @Modifying
+    @Query("update SimCardActivationRecord r set r.customerEmailHash = :hash where r.id = :id")
+    int updateEmailHash(@Param("id") Long id, @Param("hash") Long hash);
+    
+    /**
+     * Find all active SIM cards in the hot table
      */
     List<SimCardActivationRecord> findByActiveTrue();
     
     /**
-     * Find all inactive SIM cards
+     * Find all inactive SIM cards in the hot table
      */
     List<SimCardActivationRecord> findByActiveFalse();
     
@@ -32,4 +71,93 @@ public interface SimCardActivationRepository extends JpaRepository<SimCardActiva
      * Check if ICCID has been activated before
      */
     boolean existsByIccid(String iccid);
+    
+    /**
+     * Find one page of activation records with ICCIDs in [from, toExclusive), in ICCID order.
+     * Served as a range scan of the ICCID index.
+     */
+    @Query("select r from SimCardActivationRecord r "
+         + "where r.iccid >= :from and r.iccid < :toExclusive order by r.iccid, r.id")
+    Slice<SimCardActivationRecord> findByIccidRange(@Param("from") String from,
+                                                    @Param("toExclusive") String toExclusive,
+                                                    Pageable pageable);
+    
+    /**
+     * Count the distinct ICCIDs in [from, toExclusive), served from the ICCID index
+     */
+    @Query("select count(distinct r.iccid) from SimCardActivationRecord r "
+         + "where r.iccid >= :from and r.iccid < :toExclusive")
+    long countIccidsInRange(@Param("from") String from, @Param("toExclusive") String toExclusive);
+    
+    /**
+     * Count the distinct ICCIDs in [from, toExclusive) with a successful activation
+     */
+    @Query("select count(distinct r.iccid) from SimCardActivationRecord r "
+         + "where r.iccid >= :from and r.iccid < :toExclusive and r.active = true")
+    long countActiveIccidsInRange(@Param("from") String from, @Param("toExclusive") String toExclusive);
+    
+    /**
+     * Find the next page of activation records after the given ID, in ID order.
+     * Used to write large responses a page at a time, served as a range scan of the primary key.
+     */
+    @Query("select r from SimCardActivationRecord r where r.id > :afterId order by r.id")
+    List<SimCardActivationRecord> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+    
+    /**
+     * Stream the ICCIDs of all activation records, used to build the in-memory set of known ICCIDs.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select r.iccid from SimCardActivationRecord r")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<String> streamAllIccids();
+    
+    /**
+     * Find the highest activation record ID, used as the watermark of a statistics rebuild.
+     */
+    @Query("select max(r.id) from SimCardActivationRecord r")
+    Long findMaxId();
+    
+    /**
+     * Stream summaries of the activation records up to the given ID, used to rebuild in-memory aggregates.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select new au.com.telstra.simcardactivator.ActivationSummary("
+         + "r.iccid, r.customerEmail, r.active, r.activationTimestamp) "
+         + "from SimCardActivationRecord r where r.id <= :maxId")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ActivationSummary> streamSummariesUpTo(@Param("maxId") long maxId);
+    
+    /**
+     * Find activation records since a timestamp, restricted to the partitions that can contain them
+     */
+    @Query("select r from SimCardActivationRecord r "
+         + "where r.activationMonth >= :month and r.activationTimestamp >= :since")
+    List<SimCardActivationRecord> findActivatedSince(@Param("month") int month, @Param("since") LocalDateTime since);
+    
+    /**
+     * Find the monthly partitions older than the given partition key
+     */
+    @Query("select distinct r.activationMonth from SimCardActivationRecord r "
+         + "where r.activationMonth < :month order by r.activationMonth")
+    List<Integer> findPartitionsBefore(@Param("month") int month);
+    
+    /**
+     * Remove a whole monthly partition with a single bulk statement
+     */
+    @Modifying
+    @Query("delete from SimCardActivationRecord r where r.activationMonth = :month")
+    int deletePartition(@Param("month") int month);
+    
+    /**
+     * Stream summaries of the partitions from the given partition key onwards, used to warm caches.
+     * Records whose actuator response is the given one are left out.
+     * Must be consumed inside a read-only transaction and closed after use.
+     */
+    @Query("select new au.com.telstra.simcardactivator.ActivationSummary("
+         + "r.iccid, r.customerEmail, r.active, r.activationTimestamp) "
+         + "from SimCardActivationRecord r where r.activationMonth >= :month "
+         + "and (r.actuatorResponse is null or r.actuatorResponse <> :excludedResponse) order by r.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ActivationSummary> streamSummariesSince(@Param("month") int month,
+                                                   @Param("excludedResponse") String excludedResponse);
 }
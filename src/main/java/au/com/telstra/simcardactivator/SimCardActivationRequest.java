@@ -1,7 +1,10 @@
 package au.com.telstra.simcardactivator;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.LocalDateTime;
+
 public class SimCardActivationRequest {
     
     @JsonProperty("iccid")
@@ -10,6 +13,10 @@ public class SimCardActivationRequest {
     @JsonProperty("customerEmail")
     private String customerEmail;
     
+    @JsonProperty("activateAt")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime activateAt;
+    
     // Default constructor
     public SimCardActivationRequest() {}
     
@@ -19,6 +26,12 @@ public class SimCardActivationRequest {
         this.customerEmail = customerEmail;
     }
     
+    // Constructor with parameters
+    public SimCardActivationRequest(String iccid, String customerEmail, LocalDateTime activateAt) {
+        this(iccid, customerEmail);
+        this.activateAt = activateAt;
+    }
+    
     // Getters and setters
     public String getIccid() {
         return iccid;
@@ -36,11 +49,20 @@ public class SimCardActivationRequest {
         this.customerEmail = customerEmail;
     }
     
+    public LocalDateTime getActivateAt() {
+        return activateAt;
+    }
+    
+    public void setActivateAt(LocalDateTime activateAt) {
+        this.activateAt = activateAt;
+    }
+    
     @Override
     public String toString() {
         return "SimCardActivationRequest{" +
                 "iccid='" + iccid + '\'' +
                 ", customerEmail='" + customerEmail + '\'' +
+                ", activateAt=" + activateAt +
                 '}';
     }
 }
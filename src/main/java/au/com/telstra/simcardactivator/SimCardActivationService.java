@@ -1,60 +1,256 @@
 package au.com.telstra.simcardactivator;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * Service class for handling SIM card activation operations.
  * Provides methods to activate SIM cards, retrieve activation records,
  * and manage the persistence layer for activation data.
+ * Records of one ICCID are read and written on the shard chosen by
+ * {@link ActivationShards}; queries that are not keyed by ICCID run on every
+ * shard and their results are merged.
  */
 @Service
+@Lazy(false)
 public class SimCardActivationService {
     
     private static final Logger logger = LoggerFactory.getLogger(SimCardActivationService.class);
     private static final String ERROR_PREFIX = "Error: ";
     private static final String NULL_RESPONSE = "null";
+    private static final String OUTCOME_SUCCESS = "SUCCESS";
+    private static final String OUTCOME_FAILURE = "FAILURE";
+    private static final String OUTCOME_ERROR = "ERROR";
+    private static final String OUTCOME_REJECTED = "REJECTED";
+    private static final String OUTCOME_FOUND = "FOUND";
+    private static final String OUTCOME_NOT_FOUND = "NOT_FOUND";
+    private static final String OUTCOME_SAVED = "SAVED";
+    private static final String OUTCOME_DEADLINE = "DEADLINE";
+    private static final String DEADLINE_MESSAGE = "Request deadline too close to activate";
+    private static final String ABANDONED_MESSAGE = "Request deadline passed during the actuator call, outcome unknown";
     
-    @Value("${actuator.service.url}")
-    private String actuatorUrl;
+    // Actuator response stored for an abandoned call, whose outcome a retry re-checks
+    static final String UNKNOWN_OUTCOME_RESPONSE = ERROR_PREFIX + ABANDONED_MESSAGE;
+    private static final String DEADLINE_METRIC = "activation.deadline.exceeded";
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final Comparator<SimCardActivationRecord> ICCID_ORDER =
+        Comparator.comparing(SimCardActivationRecord::getIccid).thenComparing(SimCardActivationRecord::getId);
+    
+    @Value("${activation.deadline.min-actuator-budget-ms:100}")
+    private long minActuatorBudgetMillis;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private ActuatorClient actuatorClient;
     
     @Autowired
     private SimCardActivationRepository repository;
     
+    @Autowired
+    private ArchivedSimCardActivationRepository archiveRepository;
+    
+    @Autowired
+    private ColdArchive coldArchive;
+    
+    @Autowired
+    private ActivationStatistics statistics;
+    
+    @Autowired
+    private WarmIccidCache warmCache;
+    
+    @Autowired
+    private KnownIccidSet knownIccids;
+    
+    @Autowired
+    private ActivationEventBroadcaster eventBroadcaster;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private TransactionTemplate readOnlyTransactionTemplate;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private Counter deadlineSkipped;
+    
+    private Counter deadlineAborted;
+    
+    private Counter deadlineCompletedLate;
+    
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlightActivations = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        deadlineSkipped = deadlineCounter("skipped", "Activations skipped because the request deadline was too close");
+        deadlineAborted = deadlineCounter("aborted", "Actuator calls abandoned when the request deadline passed");
+        deadlineCompletedLate = deadlineCounter("completed-late", "Activations completed after the request deadline passed");
+    }
+    
+    private Counter deadlineCounter(String outcome, String description) {
+        return Counter.builder(DEADLINE_METRIC)
+            .tag("outcome", outcome)
+            .description(description)
+            .register(meterRegistry);
+    }
+    
     /**
      * Activates a SIM card by calling the external actuator service.
+     * Concurrent activations of the same ICCID are coalesced: the first caller
+     * performs the activation and the others wait for and share its result.
      * 
      * @param iccid the SIM card ICCID
      * @param customerEmail the customer email address
      * @return true if activation was successful, false otherwise
      */
     public boolean activateSimCard(String iccid, String customerEmail) {
+        ActivationJfrEvents.Activation event = ActivationJfrEvents.Activation.started(iccid);
+        String outcome = OUTCOME_ERROR;
+        CompletableFuture<Boolean> activation = new CompletableFuture<>();
+        CompletableFuture<Boolean> inFlight = inFlightActivations.putIfAbsent(iccid, activation);
+        if (inFlight != null) {
+            logger.info("Joining in-flight activation for ICCID: {}", iccid);
+            event.coalesced = true;
+            long waitStarted = RequestTiming.begin();
+            try {
+                boolean result = awaitActivation(inFlight);
+                outcome = toOutcome(result);
+                return result;
+            } finally {
+                RequestTiming.end(RequestTiming.COALESCE, waitStarted);
+                event.finish(outcome);
+            }
+        }
+        try {
+            boolean result = performActivation(iccid, customerEmail);
+            activation.complete(result);
+            outcome = toOutcome(result);
+            return result;
+        } catch (RuntimeException e) {
+            activation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightActivations.remove(iccid, activation);
+            event.finish(outcome);
+        }
+    }
+    
+    private static String toOutcome(boolean success) {
+        return success ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+    }
+    
+    /**
+     * Waits for an in-flight activation and returns its result.
+     * 
+     * @param inFlight the in-flight activation
+     * @return the activation result
+     */
+    private boolean awaitActivation(CompletableFuture<Boolean> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Performs an activation, answering from previous results where possible.
+     * ICCIDs the authoritative known-ICCID set has never seen go straight to the actuator;
+     * any other ICCID is checked against the hot table and both archive tiers first.
+     * Requests whose deadline has passed are dropped before the lookup, and the
+     * actuator is only called when enough of the deadline remains. A previous call
+     * abandoned at the deadline has an unknown outcome, so the actuator is called again
+     * and its record updated with the result.
+     * The flow uses short transactions only: previous results are looked up in one
+     * read-only transaction whose connection is returned before the actuator is called,
+     * and the result is saved in its own transaction afterwards. No database connection
+     * is held while waiting for the actuator.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param customerEmail the customer email address
+     * @return true if activation was successful, false otherwise
+     */
+    private boolean performActivation(String iccid, String customerEmail) {
         logger.info("Starting SIM card activation for ICCID: {} and customer: {}", iccid, customerEmail);
         
         try {
-            // Check if this ICCID has been activated before
-            if (repository.existsByIccid(iccid)) {
-                return handleExistingActivation(iccid);
+            // Answer repeat activations of recently seen ICCIDs from memory
+            Boolean cachedResult = warmCache.get(iccid);
+            if (cachedResult != null) {
+                logger.warn("ICCID {} has already been activated", iccid);
+                logger.info("Previous activation result for ICCID {}: {}", iccid, cachedResult);
+                return cachedResult;
             }
             
-            // Attempt new activation
-            return performNewActivation(iccid, customerEmail);
+            // Nobody is waiting for the result any more
+            checkDeadline(iccid, 1);
             
+            // Check if this ICCID has been activated before; ICCIDs never seen skip the database
+            long lookupStarted = RequestTiming.begin();
+            if (knownIccids.isCertainlyNew(iccid)) {
+                RequestTiming.end(RequestTiming.LOOKUP, lookupStarted);
+                return performNewActivation(iccid, customerEmail, null);
+            }
+            ActivationJfrEvents.DbLookup lookupEvent = ActivationJfrEvents.DbLookup.started(iccid);
+            boolean known = knownIccids.mightContain(iccid);
+            Optional<SimCardActivationRecord> previousRecord = shards.onShardFor(iccid,
+                () -> readOnlyTransactionTemplate.execute(status -> findPreviousRecord(iccid, known)));
+            lookupEvent.finish(previousRecord.isPresent() ? OUTCOME_FOUND : OUTCOME_NOT_FOUND);
+            RequestTiming.end(RequestTiming.LOOKUP, lookupStarted);
+            if (previousRecord.isPresent() && isOutcomeUnknown(previousRecord.get())) {
+                logger.warn("Re-checking abandoned activation of ICCID {}", iccid);
+                return performNewActivation(iccid, customerEmail, previousRecord.get());
+            }
+            if (previousRecord.isPresent()) {
+                logger.warn("ICCID {} has already been activated", iccid);
+                logger.info("Previous activation result for ICCID {}: {}", iccid, previousRecord.get().isActive());
+                return previousRecord.get().isActive();
+            }
+            
+            // Attempt new activation outside any transaction
+            return performNewActivation(iccid, customerEmail, null);
+        
+        } catch (ActivationRejectedException | DeadlineExceededException e) {
+            // Either nothing was recorded or the call was recorded with an unknown outcome,
+            // and a retry re-checks it with the actuator
+            throw e;
         } catch (Exception e) {
             logger.error("Error calling actuator service for ICCID {}: {}", iccid, e.getMessage(), e);
             saveFailedActivation(iccid, customerEmail, e.getMessage());
@@ -63,47 +259,140 @@ public class SimCardActivationService {
     }
     
     /**
-     * Handles the case where an ICCID has already been activated.
+     * Finds the record of a previous activation of an ICCID.
+     * An ICCID in the known-ICCID set most likely has a record, so it is fetched straight away.
+     * Any other ICCID reaches here only while the set is loading or not authoritative; it is
+     * most likely new, so the tiers are probed for existence first and the record is only
+     * fetched if one turns up; the ICCID is then added to the set.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param known whether the known-ICCID set contains the ICCID
+     * @return the previous activation record, or empty if the ICCID has not been activated
+     */
+    private Optional<SimCardActivationRecord> findPreviousRecord(String iccid, boolean known) {
+        if (known) {
+            return findActivationRecord(iccid);
+        }
+        if (!hasActivationRecord(iccid)) {
+            return Optional.empty();
+        }
+        knownIccids.add(iccid);
+        // A record moved between tiers during the lookup still counts as a failed activation
+        return Optional.of(findActivationRecord(iccid).orElseGet(() -> new SimCardActivationRecord(iccid, null, false)));
+    }
+    
+    /**
+     * Checks whether a record holds an actuator call abandoned at the request deadline.
+     * 
+     * @param record the activation record
+     * @return true if the outcome of the recorded call is unknown
+     */
+    private static boolean isOutcomeUnknown(SimCardActivationRecord record) {
+        return !record.isActive() && UNKNOWN_OUTCOME_RESPONSE.equals(record.getActuatorResponse());
+    }
+    
+    /**
+     * Checks whether an activation result is already recorded for an ICCID.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return true if the ICCID has been activated before
+     */
+    public boolean isActivationRecorded(String iccid) {
+        if (warmCache.get(iccid) != null) {
+            return true;
+        }
+        if (knownIccids.isCertainlyNew(iccid)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(shards.onShardFor(iccid,
+            () -> readOnlyTransactionTemplate.execute(status -> hasActivationRecord(iccid))));
+    }
+    
+    /**
+     * Checks whether an ICCID has a record in the hot table or either archive tier.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return true if the ICCID has been activated before
+     */
+    private boolean hasActivationRecord(String iccid) {
+        return repository.existsByIccid(iccid)
+            || archiveRepository.existsByIccid(iccid)
+            || coldArchive.find(iccid).isPresent();
+    }
+    
+    /**
+     * Finds the activation record for an ICCID, falling back to the archive table
+     * and then the cold archive segments when the hot table has no match.
      * 
      * @param iccid the SIM card ICCID
-     * @return the previous activation result
+     * @return optional containing the activation record if found
      */
-    private boolean handleExistingActivation(String iccid) {
-        logger.warn("ICCID {} has already been activated", iccid);
-        Optional<SimCardActivationRecord> existingRecord = repository.findByIccid(iccid);
-        if (existingRecord.isPresent()) {
-            SimCardActivationRecord record = existingRecord.get();
-            logger.info("Previous activation result for ICCID {}: {}", iccid, record.isActive());
-            return record.isActive();
+    private Optional<SimCardActivationRecord> findActivationRecord(String iccid) {
+        Optional<SimCardActivationRecord> record = repository.findByIccid(iccid);
+        if (record.isPresent()) {
+            return record;
+        }
+        Optional<SimCardActivationRecord> archived = archiveRepository
+            .findFirstByIccidOrderByActivationTimestampDesc(iccid)
+            .map(ArchivedSimCardActivationRecord::toActivationRecord);
+        if (archived.isPresent()) {
+            return archived;
         }
-        return false;
+        return coldArchive.find(iccid);
     }
     
     /**
      * Performs a new SIM card activation by calling the actuator service.
+     * The actuator is skipped, and nothing recorded, only when too little of the deadline
+     * remains before the call starts. A call cut short by the deadline is recorded as failed
+     * with an unknown outcome, since the actuator may have acted, and the next activation
+     * request calls the actuator again and updates that record with the result.
      * 
      * @param iccid the SIM card ICCID
      * @param customerEmail the customer email address
+     * @param unresolved the record of an abandoned call to update, or null for a new activation
      * @return true if activation was successful, false otherwise
      */
-    private boolean performNewActivation(String iccid, String customerEmail) {
-        ActuatorRequest actuatorRequest = new ActuatorRequest(iccid);
-        HttpEntity<ActuatorRequest> requestEntity = createHttpEntity(actuatorRequest);
-        
-        logger.debug("Calling actuator service at: {}", actuatorUrl);
-        
-        ResponseEntity<ActuatorResponse> response = restTemplate.postForEntity(
-            actuatorUrl, 
-            requestEntity, 
-            ActuatorResponse.class
-        );
+    private boolean performNewActivation(String iccid, String customerEmail, SimCardActivationRecord unresolved) {
+        checkDeadline(iccid, minActuatorBudgetMillis);
+        long actuatorStarted = RequestTiming.begin();
+        ActivationJfrEvents.ActuatorCall actuatorEvent = ActivationJfrEvents.ActuatorCall.started(iccid);
+        String actuatorOutcome = OUTCOME_ERROR;
+        ResponseEntity<ActuatorResponse> response;
+        try {
+            response = actuatorClient.activate(iccid);
+            actuatorOutcome = toOutcome(isActivationSuccessful(response));
+        } catch (ActivationRejectedException e) {
+            actuatorOutcome = OUTCOME_REJECTED;
+            throw e;
+        } catch (DeadlineExceededException e) {
+            // The actuator may already have acted, so the call is recorded as failed with an unknown outcome
+            actuatorOutcome = OUTCOME_DEADLINE;
+            deadlineAborted.increment();
+            logger.warn("Abandoned actuator call for ICCID {}: request deadline passed", iccid);
+            if (unresolved == null) {
+                saveFailedActivation(iccid, customerEmail, ABANDONED_MESSAGE);
+            }
+            throw e;
+        } finally {
+            actuatorEvent.finish(actuatorOutcome);
+            RequestTiming.end(RequestTiming.ACTUATOR, actuatorStarted);
+        }
+        if (RequestDeadline.isExpired()) {
+            // The actuator has acted, so the result is still recorded
+            deadlineCompletedLate.increment();
+        }
         
         boolean success = isActivationSuccessful(response);
         String responseBody = getResponseBody(response);
         
         logger.info("Actuator response for ICCID {}: {}", iccid, responseBody);
         
-        saveActivationRecord(iccid, customerEmail, success, responseBody);
+        if (unresolved != null) {
+            resolveActivationRecord(unresolved, success, responseBody);
+        } else {
+            saveActivationRecord(iccid, customerEmail, success, responseBody);
+        }
         
         logger.info("SIM card activation {} for ICCID: {}", success ? "SUCCESS" : "FAILED", iccid);
         
@@ -111,15 +400,19 @@ public class SimCardActivationService {
     }
     
     /**
-     * Creates an HTTP entity with proper headers for the actuator request.
+     * Gives up on an activation when less than the required time is left before the request deadline.
      * 
-     * @param actuatorRequest the request object
-     * @return the HTTP entity
+     * @param iccid the SIM card ICCID
+     * @param requiredMillis the budget the next step needs, in milliseconds
+     * @throws DeadlineExceededException if less time remains
      */
-    private HttpEntity<ActuatorRequest> createHttpEntity(ActuatorRequest actuatorRequest) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        return new HttpEntity<>(actuatorRequest, headers);
+    private void checkDeadline(String iccid, long requiredMillis) {
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining < requiredMillis) {
+            deadlineSkipped.increment();
+            logger.warn("Skipping activation of ICCID {}: {} ms left before the request deadline", iccid, remaining);
+            throw new DeadlineExceededException(DEADLINE_MESSAGE);
+        }
     }
     
     /**
@@ -153,7 +446,36 @@ public class SimCardActivationService {
     private void saveActivationRecord(String iccid, String customerEmail, boolean success, String responseBody) {
         SimCardActivationRecord record = new SimCardActivationRecord(iccid, customerEmail, success);
         record.setActuatorResponse(responseBody);
-        repository.save(record);
+        persistRecord(record);
+    }
+    
+    /**
+     * Updates the record of an abandoned call with the result of calling the actuator again.
+     * The record keeps its timestamp and is only updated while it is still in the hot table
+     * with an unknown outcome; the statistics move it from failed to successful if it succeeded.
+     * 
+     * @param unresolved the record of the abandoned call
+     * @param success whether activation was successful
+     * @param responseBody the response from actuator
+     */
+    private void resolveActivationRecord(SimCardActivationRecord unresolved, boolean success, String responseBody) {
+        String iccid = unresolved.getIccid();
+        SimCardActivationRecord resolved = shards.onShardFor(iccid, () -> transactionTemplate.execute(status ->
+            repository.findByIccid(iccid)
+                .filter(SimCardActivationService::isOutcomeUnknown)
+                .map(record -> {
+                    record.setActive(success);
+                    record.setActuatorResponse(responseBody);
+                    return record;
+                })
+                .orElse(null)));
+        if (resolved == null) {
+            logger.warn("Abandoned activation of ICCID {} is no longer in the hot table, result not recorded", iccid);
+            return;
+        }
+        statistics.recordResolved(resolved);
+        warmCache.put(iccid, success);
+        eventBroadcaster.publish(resolved);
     }
     
     /**
@@ -166,17 +488,94 @@ public class SimCardActivationService {
     private void saveFailedActivation(String iccid, String customerEmail, String errorMessage) {
         SimCardActivationRecord record = new SimCardActivationRecord(iccid, customerEmail, false);
         record.setActuatorResponse(ERROR_PREFIX + errorMessage);
-        repository.save(record);
+        persistRecord(record);
+    }
+    
+    /**
+     * Persists an activation record in its own short transaction, then updates
+     * the in-memory aggregates and notifies event subscribers. The ICCID is added to
+     * the known set first, so it is never reported as new once the record is visible.
+     * During a startup warm-up activation the record is flushed and rolled back instead,
+     * and nothing else is updated.
+     * 
+     * @param record the activation record to persist
+     * @return the persisted record
+     */
+    private SimCardActivationRecord persistRecord(SimCardActivationRecord record) {
+        record.setCustomerEmailHash(CustomerEmails.hash(record.getCustomerEmail()));
+        if (WarmupScope.isActive()) {
+            return shards.onShardFor(record.getIccid(), () -> transactionTemplate.execute(status -> {
+                SimCardActivationRecord flushed = repository.saveAndFlush(record);
+                status.setRollbackOnly();
+                return flushed;
+            }));
+        }
+        knownIccids.add(record.getIccid());
+        long saveStarted = RequestTiming.begin();
+        ActivationJfrEvents.DbSave saveEvent = ActivationJfrEvents.DbSave.started(record.getIccid());
+        String saveOutcome = OUTCOME_ERROR;
+        SimCardActivationRecord saved;
+        try {
+            saved = shards.onShardFor(record.getIccid(), () -> repository.save(record));
+            saveOutcome = OUTCOME_SAVED;
+        } finally {
+            saveEvent.finish(saveOutcome);
+            RequestTiming.end(RequestTiming.SAVE, saveStarted);
+        }
+        statistics.recordSaved(saved);
+        if (!isOutcomeUnknown(saved)) {
+            warmCache.put(saved.getIccid(), saved.isActive());
+        }
+        eventBroadcaster.publish(saved);
+        return saved;
     }
     
     /**
-     * Retrieves all activation records.
+     * Retrieves all activation records in the hot table.
+     * Records moved to the archive table or the cold tier are not included.
      * 
-     * @return list of all activation records
+     * @return list of all hot activation records
      */
     public List<SimCardActivationRecord> getAllActivationRecords() {
         logger.debug("Retrieving all activation records");
-        return repository.findAll();
+        return merge(shards.onEveryShard(repository::findAll));
+    }
+    
+    /**
+     * Passes every activation record to the given action, paging through the table by ID
+     * so memory use does not grow with the table size. Each page is read in its own short
+     * read-only transaction and handed to the action after the transaction has ended, so
+     * no database connection is held while the action runs, however slowly it consumes
+     * the records. Shards are paged one after another. Only the hot table is included;
+     * records moved to the archive table or the cold tier are not.
+     * 
+     * @param action the action to apply to each record
+     */
+    public void forEachActivationRecord(Consumer<SimCardActivationRecord> action) {
+        logger.debug("Paging through all activation records");
+        Pageable firstPage = PageRequest.of(0, EXPORT_PAGE_SIZE);
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            long afterId = Long.MIN_VALUE;
+            List<SimCardActivationRecord> page;
+            do {
+                long pageAfterId = afterId;
+                page = shards.onShard(shard, () -> readOnlyTransactionTemplate.execute(
+                    status -> repository.findPageAfter(pageAfterId, firstPage)));
+                page.forEach(action);
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == EXPORT_PAGE_SIZE);
+        }
+    }
+    
+    private static List<SimCardActivationRecord> merge(List<List<SimCardActivationRecord>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        List<SimCardActivationRecord> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        return merged;
     }
     
     /**
@@ -187,7 +586,7 @@ public class SimCardActivationService {
      */
     public Optional<SimCardActivationRecord> getActivationRecordByIccid(String iccid) {
         logger.debug("Retrieving activation record for ICCID: {}", iccid);
-        return repository.findByIccid(iccid);
+        return shards.onShardFor(iccid, () -> findActivationRecord(iccid));
     }
     
     /**
@@ -198,37 +597,193 @@ public class SimCardActivationService {
      */
     public Optional<SimCardActivationRecord> getActivationRecordById(Long id) {
         logger.debug("Retrieving activation record for ID: {}", id);
-        return repository.findById(id);
+        int shard = shards.shardForId(id);
+        return shard < 0 ? Optional.empty() : shards.onShard(shard, () -> repository.findById(id));
     }
     
     /**
-     * Retrieves activation records by customer email.
+     * Retrieves the version projection of an activation record by ICCID.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return optional containing the record version if found
+     */
+    public Optional<SimCardActivationVersion> getActivationVersionByIccid(String iccid) {
+        logger.debug("Retrieving activation version for ICCID: {}", iccid);
+        return shards.onShardFor(iccid, () -> repository.findVersionByIccid(iccid));
+    }
+    
+    /**
+     * Retrieves the version projection of an activation record by ID.
+     * 
+     * @param id the record ID
+     * @return optional containing the record version if found
+     */
+    public Optional<SimCardActivationVersion> getActivationVersionById(Long id) {
+        logger.debug("Retrieving activation version for ID: {}", id);
+        int shard = shards.shardForId(id);
+        return shard < 0 ? Optional.empty() : shards.onShard(shard, () -> repository.findVersionById(id));
+    }
+    
+    /**
+     * Retrieves the current activation statistics from the in-memory aggregate.
+     * A customer the aggregate does not track is counted from the customer email
+     * indexes of the hot and archive tables instead, without the cold tier.
+     * Range counts are counted per tier: with indexed COUNT queries on the hot and archive
+     * tables of every shard, and by inflating only the overlapping cold archive blocks.
+     * A SIM counts as active when it has a successful activation, and each ICCID is held
+     * by one tier at a time.
+     * 
+     * @param customerEmail optional customer email to include a per-customer count for
+     * @param iccidRange optional ICCID range to include active and inactive SIM counts for
+     * @return the activation statistics
+     */
+    public ActivationStatisticsResponse getActivationStatistics(String customerEmail, IccidRange iccidRange) {
+        logger.debug("Retrieving activation statistics");
+        ActivationStatisticsResponse response = statistics.snapshot(customerEmail);
+        if (customerEmail != null && response.getCustomerActivations() == null) {
+            response.setCustomerActivations((long) getActivationRecordsByCustomerEmail(customerEmail).size());
+        }
+        if (iccidRange != null) {
+            String from = iccidRange.getFrom();
+            String toExclusive = iccidRange.getToExclusive();
+            long total = 0;
+            long active = 0;
+            for (long[] counts : shards.onEveryShard(
+                    () -> readOnlyTransactionTemplate.execute(status -> countIccidsInRange(from, toExclusive)))) {
+                total += counts[0];
+                active += counts[1];
+            }
+            Map<String, Boolean> cold = new HashMap<>();
+            coldArchive.forEachInRange(from, toExclusive,
+                record -> cold.merge(record.getIccid(), record.isActive(), Boolean::logicalOr));
+            for (Boolean activated : cold.values()) {
+                total++;
+                if (activated) {
+                    active++;
+                }
+            }
+            response.setIccidPrefix(iccidRange.getPrefix());
+            response.setIccidFrom(iccidRange.getPrefix() == null ? from : null);
+            response.setIccidTo(iccidRange.getTo());
+            response.setRangeActive(active);
+            response.setRangeInactive(total - active);
+        }
+        return response;
+    }
+    
+    /**
+     * Counts the ICCIDs of a range in the hot and archive tables of the current shard.
+     * 
+     * @param from the lowest ICCID of the range
+     * @param toExclusive the ICCID above the range
+     * @return the number of ICCIDs and the number of them with a successful activation
+     */
+    private long[] countIccidsInRange(String from, String toExclusive) {
+        long total = repository.countIccidsInRange(from, toExclusive)
+            + archiveRepository.countIccidsInRange(from, toExclusive);
+        long active = repository.countActiveIccidsInRange(from, toExclusive)
+            + archiveRepository.countActiveIccidsInRange(from, toExclusive);
+        return new long[] {total, active};
+    }
+    
+    /**
+     * Retrieves one page of activation records whose ICCIDs fall in the given range, in ICCID order.
+     * With several shards, each shard returns its first records up to the end of the
+     * requested page and the page is cut from their merge, so deep pages cost more.
+     * 
+     * @param iccidRange the ICCID range
+     * @param page the zero-based page number
+     * @param size the page size
+     * @return the page of activation records
+     */
+    public Slice<SimCardActivationRecord> getActivationRecordsByIccidRange(IccidRange iccidRange, int page, int size) {
+        logger.debug("Retrieving activation records for ICCID range {}, page {}", iccidRange, page);
+        PageRequest pageRequest = PageRequest.of(page, size);
+        if (shards.getShardCount() == 1) {
+            return repository.findByIccidRange(iccidRange.getFrom(), iccidRange.getToExclusive(), pageRequest);
+        }
+        int offset = Math.toIntExact(pageRequest.getOffset());
+        PageRequest upToPage = PageRequest.of(0, offset + size);
+        List<SimCardActivationRecord> merged = new ArrayList<>();
+        boolean more = false;
+        for (Slice<SimCardActivationRecord> slice : shards.onEveryShard(
+                () -> repository.findByIccidRange(iccidRange.getFrom(), iccidRange.getToExclusive(), upToPage))) {
+            merged.addAll(slice.getContent());
+            more |= slice.hasNext();
+        }
+        merged.sort(ICCID_ORDER);
+        List<SimCardActivationRecord> content = offset < merged.size()
+            ? new ArrayList<>(merged.subList(offset, Math.min(offset + size, merged.size())))
+            : new ArrayList<>();
+        return new SliceImpl<>(content, pageRequest, more || merged.size() > offset + size);
+    }
+    
+    /**
+     * Retrieves activation records by customer email, ignoring case and surrounding whitespace.
+     * Records are located through the indexed email hash column of the hot and archive
+     * tables; hash collisions are filtered out by comparing the normalised emails.
      * 
      * @param customerEmail the customer email address
      * @return list of activation records for the customer
      */
     public List<SimCardActivationRecord> getActivationRecordsByCustomerEmail(String customerEmail) {
         logger.debug("Retrieving activation records for customer: {}", customerEmail);
-        return repository.findByCustomerEmail(customerEmail);
+        Long hash = CustomerEmails.hash(customerEmail);
+        return merge(shards.onEveryShard(() -> {
+            List<SimCardActivationRecord> records = new ArrayList<>();
+            for (SimCardActivationRecord record : repository.findByCustomerEmailHash(hash)) {
+                if (CustomerEmails.matches(customerEmail, record.getCustomerEmail())) {
+                    records.add(record);
+                }
+            }
+            for (ArchivedSimCardActivationRecord archived : archiveRepository.findByCustomerEmailHash(hash)) {
+                if (CustomerEmails.matches(customerEmail, archived.getCustomerEmail())) {
+                    records.add(archived.toActivationRecord());
+                }
+            }
+            return records;
+        }));
+    }
+    
+    /**
+     * Retrieves activation records created since the given time from the hot and archive tables.
+     * Only the monthly partitions that can contain matching rows are scanned. Records
+     * already moved to the cold tier are not included.
+     * 
+     * @param since the earliest activation timestamp to include
+     * @return list of recent activation records
+     */
+    public List<SimCardActivationRecord> getActivationRecordsSince(LocalDateTime since) {
+        logger.debug("Retrieving activation records since: {}", since);
+        int month = SimCardActivationRecord.toActivationMonth(since);
+        return merge(shards.onEveryShard(() -> {
+            List<SimCardActivationRecord> records = new ArrayList<>(repository.findActivatedSince(month, since));
+            for (ArchivedSimCardActivationRecord archived : archiveRepository.findActivatedSince(month, since)) {
+                records.add(archived.toActivationRecord());
+            }
+            return records;
+        }));
     }
     
     /**
-     * Retrieves all active SIM cards.
+     * Retrieves all active SIM cards in the hot table.
+     * Records moved to the archive table or the cold tier are not included.
      * 
      * @return list of active SIM card records
      */
     public List<SimCardActivationRecord> getActiveSimCards() {
         logger.debug("Retrieving all active SIM cards");
-        return repository.findByActiveTrue();
+        return merge(shards.onEveryShard(repository::findByActiveTrue));
     }
     
     /**
-     * Retrieves all inactive SIM cards.
+     * Retrieves all inactive SIM cards in the hot table.
+     * Records moved to the archive table or the cold tier are not included.
      * 
      * @return list of inactive SIM card records
      */
     public List<SimCardActivationRecord> getInactiveSimCards() {
         logger.debug("Retrieving all inactive SIM cards");
-        return repository.findByActiveFalse();
+        return merge(shards.onEveryShard(repository::findByActiveFalse));
     }
 }
@@ -0,0 +1,17 @@
+package au.com.telstra.simcardactivator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of an activation record used for conditional GET handling.
+ * Only the identifier, version and timestamp columns are selected, so no entity
+ * is loaded or serialised when answering a revalidation request.
+ */
+public interface SimCardActivationVersion {
+    
+    Long getId();
+    
+    Long getVersion();
+    
+    LocalDateTime getActivationTimestamp();
+}
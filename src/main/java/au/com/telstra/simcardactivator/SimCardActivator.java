@@ -2,8 +2,10 @@ package au.com.telstra.simcardactivator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SimCardActivator {
 
     public static void main(String[] args) {
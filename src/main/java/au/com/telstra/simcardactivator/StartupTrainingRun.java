@@ -0,0 +1,32 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shuts the application down as soon as it is ready.
+ * Used by the fast-startup build profile to record the classes loaded during
+ * startup into an application class-data-sharing archive.
+ */
+@Component
+@ConditionalOnProperty(name = "startup.training-run", havingValue = "true")
+public class StartupTrainingRun {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupTrainingRun.class);
+    
+    @Autowired
+    private ApplicationContext context;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void exitWhenReady() {
+        logger.info("Training run complete, shutting down");
+        System.exit(SpringApplication.exit(context));
+    }
+}
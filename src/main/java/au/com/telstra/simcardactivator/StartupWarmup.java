@@ -0,0 +1,227 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exercises the activation request path before the service reports ready.
+ * Runs as an application runner, so the readiness state only flips to accepting
+ * traffic once it has finished. Each iteration sends an invalid activation request
+ * and an ICCID lookup for a scratch ICCID through the local HTTP port, serialises a
+ * record, and runs a full activation of the worker's scratch ICCID: the previous-result
+ * lookup, an actuator call answered by a stub on the loopback interface, and the save,
+ * which is rolled back (see {@link WarmupScope}). So the JIT compiles the filter,
+ * binding, validation, JSON, actuator client and Hibernate paths without changing any
+ * data or calling the real actuator. Each worker also opens a connection to the
+ * actuator service. Stops after the configured number of iterations or duration,
+ * whichever comes first.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final String SCRATCH_ICCID = "89000000000000000000";
+    private static final String WORKER_ICCID_FORMAT = "890000000000000001%02d";
+    private static final String STUB_PATH = "/warmup-actuator";
+    private static final byte[] STUB_RESPONSE = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final String SCRATCH_EMAIL = "warmup@localhost";
+    private static final String INVALID_REQUEST_BODY = "{\"iccid\":\"" + SCRATCH_ICCID + "\",\"customerEmail\":\"\"}";
+    
+    @Value("${activation.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.warmup.iterations:10000}")
+    private int iterations;
+    
+    @Value("${activation.warmup.max-duration-ms:30000}")
+    private long maxDurationMillis;
+    
+    @Value("${activation.warmup.threads:4}")
+    private int threads;
+    
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ActuatorClient actuatorClient;
+    
+    @Autowired
+    private SimCardActivationService activationService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private volatile int port;
+    
+    private final AtomicLong stubActivations = new AtomicLong();
+    
+    @EventListener(WebServerInitializedEvent.class)
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            port = event.getWebServer().getPort();
+        }
+    }
+    
+    /**
+     * Runs the warm-up iterations on the configured number of threads.
+     * 
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+        ExecutorService stubExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup-actuator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpServer stub;
+        try {
+            stub = startStubActuator(stubExecutor);
+        } catch (IOException e) {
+            // Warm-up is best effort; without the stub it is skipped rather than calling the real actuator
+            logger.warn("Warm-up skipped, stub actuator could not be started: {}", e.getMessage());
+            stubExecutor.shutdownNow();
+            return;
+        }
+        String stubUrl = "http://" + stub.getAddress().getHostString() + ":" + stub.getAddress().getPort() + STUB_PATH;
+        long started = System.nanoTime();
+        long deadline = started + maxDurationMillis * 1_000_000;
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger actuatorConnections = new AtomicInteger();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                // One scratch ICCID per worker, so concurrent activations are not coalesced
+                String workerIccid = String.format(WORKER_ICCID_FORMAT, i);
+                results.add(workers.submit(() -> {
+                    if (actuatorClient.warmUp()) {
+                        actuatorConnections.incrementAndGet();
+                    }
+                    while (System.nanoTime() < deadline && completed.getAndIncrement() < iterations) {
+                        iterate(workerIccid, stubUrl);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            // Warm-up is best effort; a failure must not keep the service from starting
+            logger.warn("Warm-up stopped early: {}", e.getCause().getMessage(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+            stub.stop(0);
+            stubExecutor.shutdownNow();
+        }
+        logger.info("Warm-up completed {} iterations on {} threads in {} ms, {} actuator connections opened",
+            Math.min(completed.get(), iterations), threads, (System.nanoTime() - started) / 1_000_000,
+            actuatorConnections.get());
+    }
+    
+    /**
+     * Starts the stub actuator answering warm-up activations with success.
+     * 
+     * @param executor the threads handling stub requests
+     * @return the running stub, bound to an ephemeral loopback port
+     * @throws IOException if the stub cannot be bound
+     */
+    private HttpServer startStubActuator(ExecutorService executor) throws IOException {
+        HttpServer stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        stub.setExecutor(executor);
+        stub.createContext(STUB_PATH, exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                exchange.sendResponseHeaders(200, STUB_RESPONSE.length);
+                exchange.getResponseBody().write(STUB_RESPONSE);
+            }
+            stubActivations.incrementAndGet();
+        });
+        stub.start();
+        return stub;
+    }
+    
+    /**
+     * Returns the number of warm-up activations answered by the stub actuator.
+     * 
+     * @return the stub activation count
+     */
+    public long getStubActivations() {
+        return stubActivations.get();
+    }
+    
+    /**
+     * Runs one warm-up iteration.
+     * 
+     * @param workerIccid the scratch ICCID activated by this worker
+     * @param stubUrl the URL of the stub actuator
+     */
+    private void iterate(String workerIccid, String stubUrl) throws IOException {
+        if (port > 0) {
+            String baseUrl = "http://localhost:" + port + "/api";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            exchangeIgnoringStatus(() -> restTemplate.postForEntity(
+                baseUrl + "/activate", new HttpEntity<>(INVALID_REQUEST_BODY, headers), String.class));
+            exchangeIgnoringStatus(() -> restTemplate.getForEntity(
+                baseUrl + "/activations/" + SCRATCH_ICCID, String.class));
+        }
+        SimCardActivationRecord scratch = new SimCardActivationRecord(SCRATCH_ICCID, SCRATCH_EMAIL, false);
+        scratch.setCustomerEmailHash(CustomerEmails.hash(SCRATCH_EMAIL));
+        objectMapper.readValue(objectMapper.writeValueAsBytes(scratch), SimCardActivationRecord.class);
+        WarmupScope.begin(stubUrl);
+        try {
+            activationService.activateSimCard(workerIccid, SCRATCH_EMAIL);
+        } finally {
+            WarmupScope.end();
+        }
+    }
+    
+    private void exchangeIgnoringStatus(Runnable exchange) {
+        try {
+            exchange.run();
+        } catch (HttpStatusCodeException e) {
+            // Error statuses are expected: the requests are built to be rejected or not found
+        } catch (RestClientException e) {
+            logger.debug("Warm-up request failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of recently activated ICCIDs and their activation results.
+ * Preloaded from the hot partitions before the application reports ready, so
+ * repeat activations after a restart are answered without a database round trip.
+ * Activation results never change once recorded, so entries are never invalidated.
+ * Calls abandoned with an unknown outcome are not cached until they are resolved.
+ */
+@Component
+public class WarmIccidCache implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WarmIccidCache.class);
+    
+    @Value("${activation.warm-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${activation.warm-cache.months:3}")
+    private int months;
+    
+    @Value("${activation.warm-cache.max-entries:1000000}")
+    private int maxEntries;
+    
+    @Autowired
+    private SimCardActivationRepository repository;
+    
+    @Autowired
+    private ActivationShards shards;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+    
+    /**
+     * Preloads the ICCIDs of the hot partitions, scanning all shards in parallel.
+     * 
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        int since = SimCardActivationRecord.toActivationMonth(LocalDateTime.now().minusMonths(months));
+        TransactionTemplate readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        shards.onEveryShard(() -> readOnlyTransactionTemplate.execute(status -> preload(since)));
+        logger.info("Preloaded {} ICCIDs into the warm cache in {} ms",
+            results.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private Void preload(int since) {
+        try (Stream<ActivationSummary> summaries = repository.streamSummariesSince(since,
+                SimCardActivationService.UNKNOWN_OUTCOME_RESPONSE)) {
+            for (ActivationSummary summary : (Iterable<ActivationSummary>) summaries::iterator) {
+                if (results.size() >= maxEntries) {
+                    logger.warn("Warm ICCID cache reached {} entries, remaining ICCIDs will be looked up on demand",
+                        maxEntries);
+                    break;
+                }
+                put(summary.getIccid(), summary.isActive());
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the recorded activation result for an ICCID, if cached.
+     * 
+     * @param iccid the SIM card ICCID
+     * @return the activation result, or null if the ICCID is not cached
+     */
+    public Boolean get(String iccid) {
+        return enabled ? results.get(iccid) : null;
+    }
+    
+    /**
+     * Caches the activation result for an ICCID.
+     * The first recorded result wins, matching the duplicate-activation rule.
+     * 
+     * @param iccid the SIM card ICCID
+     * @param active the activation result
+     */
+    public void put(String iccid, boolean active) {
+        if (enabled && results.size() < maxEntries) {
+            results.putIfAbsent(iccid, active);
+        }
+    }
+    
+    public int size() {
+        return results.size();
+    }
+}
@@ -0,0 +1,46 @@
+package au.com.telstra.simcardactivator;
+
+/**
+ * Marks the current thread as running a startup warm-up activation, held in a thread-local.
+ * Set by {@link StartupWarmup} around activations of its scratch ICCIDs. While it is set,
+ * actuator calls go to the warm-up stub instead of the real actuator and stay out of the
+ * concurrency limiter and load balancer, and activation records are saved in a
+ * transaction that is rolled back without updating the in-memory aggregates.
+ */
+final class WarmupScope {
+    
+    private static final ThreadLocal<String> STUB_ACTUATOR_URL = new ThreadLocal<>();
+    
+    private WarmupScope() {}
+    
+    /**
+     * Starts a warm-up scope on the current thread.
+     * 
+     * @param stubActuatorUrl the URL of the stub actuator to call
+     */
+    static void begin(String stubActuatorUrl) {
+        STUB_ACTUATOR_URL.set(stubActuatorUrl);
+    }
+    
+    static void end() {
+        STUB_ACTUATOR_URL.remove();
+    }
+    
+    /**
+     * Checks whether the current thread is running a warm-up activation.
+     * 
+     * @return true inside a warm-up scope
+     */
+    static boolean isActive() {
+        return STUB_ACTUATOR_URL.get() != null;
+    }
+    
+    /**
+     * Returns the stub actuator of the current warm-up scope.
+     * 
+     * @return the stub actuator URL, or null outside a warm-up scope
+     */
+    static String stubActuatorUrl() {
+        return STUB_ACTUATOR_URL.get();
+    }
+}
@@ -0,0 +1,29 @@
+-- Hot activation table, partitioned by activation_month (yyyyMM)
+CREATE TABLE sim_card_activation_records (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    iccid                VARCHAR(50)   NOT NULL,
+    customer_email       VARCHAR(255)  NOT NULL,
+    active               BOOLEAN       NOT NULL,
+    activation_timestamp TIMESTAMP     NOT NULL,
+    actuator_response    VARCHAR(1000),
+    version              BIGINT        NOT NULL,
+    activation_month     INTEGER       NOT NULL
+);
+
+CREATE INDEX idx_activation_iccid ON sim_card_activation_records (iccid);
+CREATE INDEX idx_activation_month ON sim_card_activation_records (activation_month);
+
+-- Archive table receiving whole partitions from the retention job
+CREATE TABLE sim_card_activation_archive (
+    id                   BIGINT        NOT NULL PRIMARY KEY,
+    iccid                VARCHAR(50)   NOT NULL,
+    customer_email       VARCHAR(255)  NOT NULL,
+    active               BOOLEAN       NOT NULL,
+    activation_timestamp TIMESTAMP     NOT NULL,
+    actuator_response    VARCHAR(1000),
+    version              BIGINT        NOT NULL,
+    activation_month     INTEGER       NOT NULL
+);
+
+CREATE INDEX idx_archive_iccid ON sim_card_activation_archive (iccid);
+CREATE INDEX idx_archive_month ON sim_card_activation_archive (activation_month);
@@ -0,0 +1,7 @@
+-- 64-bit hash of the trimmed, lower-cased customer email for case-insensitive lookups.
+-- Existing rows are filled in by the application when activation.customer-email.backfill.enabled is set.
+ALTER TABLE sim_card_activation_records ADD COLUMN customer_email_hash BIGINT;
+CREATE INDEX idx_activation_email_hash ON sim_card_activation_records (customer_email_hash);
+
+ALTER TABLE sim_card_activation_archive ADD COLUMN customer_email_hash BIGINT;
+CREATE INDEX idx_archive_email_hash ON sim_card_activation_archive (customer_email_hash);
@@ -0,0 +1,12 @@
+-- Activations requested for a future time, released by the in-process timing wheel
+CREATE TABLE scheduled_activations (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    iccid          VARCHAR(50)   NOT NULL,
+    customer_email VARCHAR(255)  NOT NULL,
+    activate_at    TIMESTAMP     NOT NULL,
+    status         VARCHAR(16)   NOT NULL,
+    created_at     TIMESTAMP     NOT NULL,
+    completed_at   TIMESTAMP
+);
+
+CREATE INDEX idx_scheduled_status ON scheduled_activations (status);
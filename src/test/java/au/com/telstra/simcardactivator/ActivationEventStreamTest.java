@@ -0,0 +1,209 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the activation event stream, including subscribers that stop reading.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ActivationEventStreamTest {
+
+    private static final int LARGE_EVENT_COUNT = 200;
+    private static final int LARGE_EVENT_BYTES = 100_000;
+    private static final long WAIT_MS = 10000;
+
+    private static HttpServer actuator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ActivationEventBroadcaster broadcaster;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.createContext("/actuate", exchange -> {
+            byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        actuator.start();
+        registry.add("actuator.service.url", () -> "http://localhost:" + actuator.getAddress().getPort() + "/actuate");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:activationevents");
+        registry.add("activation.events.buffer-size", () -> LARGE_EVENT_COUNT);
+        // Long enough that a healthy client's 100KB send is never mistaken for a stall on a busy machine
+        registry.add("activation.events.send-timeout-ms", () -> 1000);
+        registry.add("activation.events.max-stalled-sends", () -> 1);
+    }
+
+    @AfterAll
+    static void stopActuator() {
+        actuator.stop(0);
+    }
+
+    /**
+     * Test that a subscriber following an ICCID receives the result of its activation.
+     */
+    @Test
+    void testSubscriberReceivesActivationEvent() throws Exception {
+        String iccid = "events1234567890123401";
+        int before = broadcaster.subscriberCount();
+        try (Socket socket = subscribe("iccid=" + iccid, 0)) {
+            BufferedReader reader = reader(socket);
+            awaitSubscribers(before + 1);
+            CompletableFuture<String> data = CompletableFuture.supplyAsync(() -> readEventData(reader));
+
+            ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/api/activate",
+                new SimCardActivationRequest(iccid, "events@example.com"), String.class);
+
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            String event = data.get(WAIT_MS, TimeUnit.MILLISECONDS);
+            assertTrue(event.contains("\"iccid\":\"" + iccid + "\""), event);
+            assertTrue(event.contains("\"active\":true"), event);
+        }
+    }
+
+    /**
+     * Test that a subscriber that stops reading is evicted without holding up publishing
+     * or the delivery of events to other subscribers.
+     */
+    @Test
+    void testStalledSubscriberDoesNotBlockOthers() throws Exception {
+        String email = "x".repeat(LARGE_EVENT_BYTES) + "@example.com";
+        int before = broadcaster.subscriberCount();
+        // Nothing is ever read from the stalled socket, and its receive window is kept small
+        try (Socket stalled = subscribe(null, 1024);
+             Socket healthy = subscribe(null, 0)) {
+            BufferedReader reader = reader(healthy);
+            awaitSubscribers(before + 2);
+            CompletableFuture<Integer> received = CompletableFuture.supplyAsync(() -> {
+                int count = 0;
+                while (count < LARGE_EVENT_COUNT && readEventData(reader) != null) {
+                    count++;
+                }
+                return count;
+            });
+
+            long started = System.nanoTime();
+            for (int i = 0; i < LARGE_EVENT_COUNT; i++) {
+                // Large events fill the stalled client's socket buffers within a few sends
+                broadcaster.publish(new SimCardActivationRecord("events1234567890123402", email, true));
+            }
+            long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            assertTrue(publishMillis < 2000, "Publishing took " + publishMillis + " ms");
+            assertEquals(LARGE_EVENT_COUNT, received.get(WAIT_MS, TimeUnit.MILLISECONDS).intValue());
+            awaitSubscribers(before + 1);
+        }
+    }
+
+    /**
+     * Test that stalled subscribers beyond max-stalled-sends are dropped without adding
+     * dispatcher threads, while a healthy subscriber keeps receiving events.
+     */
+    @Test
+    void testStalledSubscribersBeyondLimitAreDropped() throws Exception {
+        String email = "y".repeat(LARGE_EVENT_BYTES) + "@example.com";
+        int before = broadcaster.subscriberCount();
+        int threadsBefore = broadcaster.dispatcherThreads();
+        try (Socket first = subscribe(null, 1024);
+             Socket second = subscribe(null, 1024);
+             Socket third = subscribe(null, 1024);
+             Socket healthy = subscribe(null, 0)) {
+            BufferedReader reader = reader(healthy);
+            awaitSubscribers(before + 4);
+            CompletableFuture<Integer> received = CompletableFuture.supplyAsync(() -> {
+                int count = 0;
+                while (count < LARGE_EVENT_COUNT && readEventData(reader) != null) {
+                    count++;
+                }
+                return count;
+            });
+
+            for (int i = 0; i < LARGE_EVENT_COUNT; i++) {
+                broadcaster.publish(new SimCardActivationRecord("events1234567890123403", email, true));
+            }
+
+            assertEquals(LARGE_EVENT_COUNT, received.get(WAIT_MS, TimeUnit.MILLISECONDS).intValue());
+            awaitSubscribers(before + 1);
+            assertTrue(broadcaster.dispatcherThreads() <= threadsBefore + 1,
+                "Dispatcher threads grew to " + broadcaster.dispatcherThreads());
+        }
+    }
+
+    private Socket subscribe(String query, int receiveBufferSize) throws IOException {
+        Socket socket = new Socket();
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        socket.connect(new InetSocketAddress("localhost", port));
+        String path = "/api/activations/events" + (query != null ? "?" + query : "");
+        OutputStream out = socket.getOutputStream();
+        // HTTP/1.0 so the stream is not chunked and each event arrives as plain lines
+        out.write(("GET " + path + " HTTP/1.0\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static String readEventData(BufferedReader reader) {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("data:")) {
+                    return line.substring("data:".length());
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (broadcaster.subscriberCount() != expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Expected " + expected + " subscribers but found " + broadcaster.subscriberCount());
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that an import slows down, rather than failing rows, while the actuator
+ * concurrency limiter rejects its activations.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ActivationImportBackpressureTest {
+
+    private static final int ROWS = 6;
+    private static final int ACTUATOR_DELAY_MS = 200;
+
+    private static HttpServer actuator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.createContext("/actuate", exchange -> {
+            try {
+                Thread.sleep(ACTUATOR_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        actuator.start();
+        registry.add("actuator.service.url", () -> "http://localhost:" + actuator.getAddress().getPort() + "/actuate");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:importbackpressure");
+        // One actuator call at a time, so concurrent rows are rejected by the limiter
+        registry.add("actuator.limit.initial", () -> 1);
+        registry.add("actuator.limit.max", () -> 1);
+        registry.add("activation.import.retry-delay-ms", () -> 50);
+        registry.add("activation.import.max-retry-delay-ms", () -> 200);
+        registry.add("activation.import.max-attempts", () -> 100);
+    }
+
+    @AfterAll
+    static void stopActuator() {
+        actuator.stop(0);
+    }
+
+    /**
+     * Test that rows rejected by the concurrency limiter are retried until they are activated.
+     */
+    @Test
+    void testRejectedRowsAreRetried() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            body.append(String.format("backpressure%08d", i)).append(",backpressure@example.com\n");
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/api/activations/import",
+            new HttpEntity<>(body.toString(), headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        for (int i = 0; i < ROWS; i++) {
+            assertTrue(response.getBody().contains(String.format("backpressure%08d", i) + ",SUCCESS"), response.getBody());
+        }
+        assertFalse(response.getBody().contains(",ERROR"), response.getBody());
+        assertFalse(response.getBody().contains(",REJECTED"), response.getBody());
+    }
+}
@@ -0,0 +1,97 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the streaming bulk activation import endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ActivationImportTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test a CSV import with a header, valid rows and an invalid row,
+     * then re-submit it and check that recorded rows are skipped.
+     */
+    @Test
+    void testCsvImportAndRestart() {
+        String body = "iccid,customerEmail\n"
+            + "import000000000000001,import@example.com\n"
+            + ",missing-iccid@example.com\n"
+            + "import000000000000002,import@example.com\n";
+
+        ResponseEntity<String> first = postImport(body, MediaType.parseMediaType("text/csv"));
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(first.getBody());
+        // Actuator is not available in tests, so new rows are recorded as failures
+        assertTrue(first.getBody().contains("2,import000000000000001,FAILURE"));
+        assertTrue(first.getBody().contains("3,,INVALID"));
+        assertTrue(first.getBody().contains("4,import000000000000002,FAILURE"));
+
+        String importId = first.getHeaders().getFirst("X-Import-Id");
+        assertNotNull(importId, "Import ID header should be present");
+        ResponseEntity<ActivationImportProgress> progress = restTemplate.getForEntity(
+            baseUrl + "/activations/import/" + importId, ActivationImportProgress.class);
+        assertEquals(HttpStatus.OK, progress.getStatusCode());
+
+        ResponseEntity<String> second = postImport(body, MediaType.parseMediaType("text/csv"));
+        assertTrue(second.getBody().contains("2,import000000000000001,SKIPPED"));
+        assertTrue(second.getBody().contains("4,import000000000000002,SKIPPED"));
+    }
+
+    /**
+     * Test an NDJSON import.
+     */
+    @Test
+    void testNdjsonImport() {
+        String body = "{\"iccid\":\"import000000000000003\",\"customerEmail\":\"ndjson@example.com\"}\n"
+            + "not json\n";
+
+        ResponseEntity<String> response = postImport(body, MediaType.parseMediaType("application/x-ndjson"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("1,import000000000000003,FAILURE"));
+        assertTrue(response.getBody().contains("2,,INVALID"));
+    }
+
+    /**
+     * Test that unknown import IDs return 404.
+     */
+    @Test
+    void testUnknownImport() {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+            baseUrl + "/activations/import/unknown", String.class);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private ResponseEntity<String> postImport(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        return restTemplate.postForEntity(baseUrl + "/activations/import", new HttpEntity<>(body, headers), String.class);
+    }
+}
@@ -0,0 +1,78 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the hand-written serializers produce the same JSON as default Jackson serialisation.
+ */
+public class ActivationJsonSerializersTest {
+
+    private final ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ObjectMapper optimisedMapper = Jackson2ObjectMapperBuilder.json()
+        .serializers(new ActivationJsonSerializers.RecordSerializer(),
+                     new ActivationJsonSerializers.SimCardResponseSerializer())
+        .build();
+
+    /**
+     * Test that activation records serialise identically, including timestamp fractions and nulls.
+     */
+    @Test
+    void testRecordSerialisationMatchesDefault() throws Exception {
+        List<Integer> nanos = Arrays.asList(0, 1000, 12000000, 120000000, 123456789, 999999999, 5);
+        for (int nano : nanos) {
+            SimCardActivationRecord record = new SimCardActivationRecord("89445001021983456789", "json@example.com", true);
+            record.setId(42L);
+            record.setActivationTimestamp(LocalDateTime.of(2023, 1, 15, 10, 30, 45, nano));
+            record.setActuatorResponse("ActuatorResponse{success=true, \"quoted\"}");
+            record.setVersion(3L);
+            assertEquals(defaultMapper.writeValueAsString(record), optimisedMapper.writeValueAsString(record),
+                "Mismatch for nano " + nano);
+        }
+
+        SimCardActivationRecord empty = new SimCardActivationRecord();
+        empty.setActivationTimestamp(null);
+        assertEquals(defaultMapper.writeValueAsString(empty), optimisedMapper.writeValueAsString(empty));
+    }
+
+    /**
+     * Test that ISO timestamps written by the formatter match Jackson's when dates are not written as timestamps.
+     */
+    @Test
+    void testIsoTimestampSerialisationMatchesDefault() throws Exception {
+        ObjectMapper isoDefaultMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        ObjectMapper isoOptimisedMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializers(new ActivationJsonSerializers.RecordSerializer())
+            .build();
+        List<Integer> nanos = Arrays.asList(0, 1000, 12000000, 120000000, 123456789, 999999999, 5);
+        for (int nano : nanos) {
+            SimCardActivationRecord record = new SimCardActivationRecord("89445001021983456789", "json@example.com", false);
+            record.setId(7L);
+            record.setActivationTimestamp(LocalDateTime.of(2023, 1, 15, 10, 30, 45, nano));
+            assertEquals(isoDefaultMapper.writeValueAsString(record), isoOptimisedMapper.writeValueAsString(record),
+                "Mismatch for nano " + nano);
+        }
+    }
+
+    /**
+     * Test that SIM card responses serialise identically.
+     */
+    @Test
+    void testSimCardResponseSerialisationMatchesDefault() throws Exception {
+        SimCardResponse response = new SimCardResponse("89445001021983456789", "json@example.com", false);
+        assertEquals(defaultMapper.writeValueAsString(response), optimisedMapper.writeValueAsString(response));
+        assertEquals(defaultMapper.writeValueAsString(new SimCardResponse()), optimisedMapper.writeValueAsString(new SimCardResponse()));
+    }
+}
@@ -0,0 +1,98 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the retention job moves aged-out partitions to the archive
+ * while lookups and duplicate protection keep working. Records are written straight
+ * to the repository, bypassing the service, so the known-ICCID set is not authoritative.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:activationretention",
+    "activation.known-iccids.authoritative=false"
+})
+@ActiveProfiles("test")
+public class ActivationRetentionTest {
+
+    @Autowired
+    private SimCardActivationRepository repository;
+
+    @Autowired
+    private ActivationRetentionJob retentionJob;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    /**
+     * Test that an old partition is archived and still found by ICCID.
+     */
+    @Test
+    void testExpiredPartitionIsArchived() {
+        String testIccid = "retention1234567890";
+        SimCardActivationRecord record = new SimCardActivationRecord(testIccid, "retention@example.com", true);
+        record.setActivationTimestamp(LocalDateTime.now().minusYears(2));
+        repository.save(record);
+
+        retentionJob.archiveExpiredPartitions();
+
+        assertFalse(repository.existsByIccid(testIccid), "Record should have left the hot table");
+        Optional<SimCardActivationRecord> archived = activationService.getActivationRecordByIccid(testIccid);
+        assertTrue(archived.isPresent(), "Archived record should still be found");
+        assertTrue(archived.get().isActive());
+
+        // Duplicate protection must still see the archived activation
+        assertTrue(activationService.activateSimCard(testIccid, "retention@example.com"),
+                  "Re-activation should return the archived result");
+        assertFalse(repository.existsByIccid(testIccid), "No new hot record should be created");
+    }
+
+    /**
+     * Test that current partitions are left in the hot table.
+     */
+    @Test
+    void testCurrentPartitionIsKept() {
+        String testIccid = "retention0987654321";
+        repository.save(new SimCardActivationRecord(testIccid, "retention@example.com", false));
+
+        retentionJob.archiveExpiredPartitions();
+
+        assertTrue(repository.existsByIccid(testIccid), "Current record should stay in the hot table");
+    }
+
+    /**
+     * Test that records created since a time are found in both the hot and archive tables.
+     */
+    @Test
+    void testRecordsSinceIncludeArchive() {
+        String archivedIccid = "retention1122334455";
+        String hotIccid = "retention5544332211";
+        SimCardActivationRecord old = new SimCardActivationRecord(archivedIccid, "retention@example.com", true);
+        old.setActivationTimestamp(LocalDateTime.now().minusMonths(6));
+        repository.save(old);
+        repository.save(new SimCardActivationRecord(hotIccid, "retention@example.com", true));
+
+        retentionJob.archiveExpiredPartitions();
+
+        assertFalse(repository.existsByIccid(archivedIccid), "Record should have left the hot table");
+        List<String> recent = activationService.getActivationRecordsSince(LocalDateTime.now().minusMonths(7)).stream()
+            .map(SimCardActivationRecord::getIccid)
+            .collect(Collectors.toList());
+        assertTrue(recent.contains(archivedIccid), "Archived record should be included");
+        assertTrue(recent.contains(hotIccid), "Hot record should be included");
+        List<String> lastDay = activationService.getActivationRecordsSince(LocalDateTime.now().minusDays(1)).stream()
+            .map(SimCardActivationRecord::getIccid)
+            .collect(Collectors.toList());
+        assertFalse(lastDay.contains(archivedIccid), "Older record should be excluded");
+        assertTrue(lastDay.contains(hotIccid));
+    }
+}
@@ -0,0 +1,93 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing default reflective Jackson serialisation of activation records
+ * with the hand-written serializers in {@link ActivationJsonSerializers}.
+ * Both mappers write dates as ISO strings, as the application's mapper does.
+ * Run with:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=au.com.telstra.simcardactivator.ActivationSerializationBenchmark
+ * </pre>
+ * Results are written to target/jmh-result.json.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivationSerializationBenchmark {
+
+    @Param({"1", "1000"})
+    int records;
+
+    private List<SimCardActivationRecord> list;
+
+    private ObjectWriter defaultWriter;
+
+    private ObjectWriter optimisedWriter;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(records);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 15, 10, 30, 0);
+        for (int i = 0; i < records; i++) {
+            SimCardActivationRecord record = new SimCardActivationRecord(
+                String.format("89445001021983%06d", i), "bench" + (i % 100) + "@example.com", i % 4 != 0);
+            record.setId((long) i + 1);
+            record.setActivationTimestamp(start.plusNanos(i * 7_000_003L));
+            record.setActuatorResponse("ActuatorResponse{success=" + record.isActive() + "}");
+            record.setVersion(0L);
+            list.add(record);
+        }
+        ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        ObjectMapper optimisedMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializers(new ActivationJsonSerializers.RecordSerializer(),
+                         new ActivationJsonSerializers.SimCardResponseSerializer())
+            .build();
+        defaultWriter = defaultMapper.writerFor(defaultMapper.getTypeFactory()
+            .constructCollectionType(List.class, SimCardActivationRecord.class));
+        optimisedWriter = optimisedMapper.writerFor(optimisedMapper.getTypeFactory()
+            .constructCollectionType(List.class, SimCardActivationRecord.class));
+    }
+
+    @Benchmark
+    public void defaultObjectMapper() throws Exception {
+        defaultWriter.writeValue(OutputStream.nullOutputStream(), list);
+    }
+
+    @Benchmark
+    public void handWrittenSerializers() throws Exception {
+        optimisedWriter.writeValue(OutputStream.nullOutputStream(), list);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ActivationSerializationBenchmark.class.getSimpleName())
+            .resultFormat(ResultFormatType.JSON)
+            .result("target/jmh-result.json")
+            .build();
+        new Runner(options).run();
+    }
+}
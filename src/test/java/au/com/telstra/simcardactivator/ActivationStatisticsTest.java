@@ -0,0 +1,148 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the incrementally maintained activation statistics endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ActivationStatisticsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private SimCardActivationRepository repository;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that each saved activation is reflected in the totals and customer count.
+     */
+    @Test
+    void testStatisticsUpdatedOnSave() {
+        String testEmail = "stats@example.com";
+        ActivationStatisticsResponse before = getStatistics(testEmail);
+
+        // Actuator is not available in tests, so this is recorded as a failure
+        activationService.activateSimCard("stats12345678901234", testEmail);
+
+        ActivationStatisticsResponse after = getStatistics(testEmail);
+        assertEquals(before.getTotal() + 1, after.getTotal());
+        assertEquals(before.getFailed() + 1, after.getFailed());
+        assertEquals(before.getSuccessful(), after.getSuccessful());
+        assertEquals(before.getCustomerActivations() + 1, after.getCustomerActivations().longValue());
+    }
+
+    /**
+     * Test that the time buckets cover the last hour and day.
+     */
+    @Test
+    void testStatisticsBuckets() {
+        activationService.activateSimCard("stats98765432109876", "buckets@example.com");
+
+        ActivationStatisticsResponse statistics = getStatistics(null);
+        assertEquals(60, statistics.getPerMinute().size());
+        assertEquals(24, statistics.getPerHour().size());
+        long recent = statistics.getPerMinute().get(58).getCount() + statistics.getPerMinute().get(59).getCount();
+        assertTrue(recent >= 1, "Recent minutes should include the new activation");
+        assertNull(statistics.getCustomerActivations(), "No customer count without a customer filter");
+    }
+
+    /**
+     * Test that an ICCID prefix selects the range counts and pages through the range in ICCID order.
+     */
+    @Test
+    void testIccidRange() {
+        String prefix = "894450010219830";
+        activationService.activateSimCard(prefix + "0003", "range@example.com");
+        activationService.activateSimCard(prefix + "0001", "range@example.com");
+        activationService.activateSimCard(prefix + "0002", "range@example.com");
+        activationService.activateSimCard("894450010219831" + "0001", "range@example.com");
+
+        ResponseEntity<ActivationStatisticsResponse> stats = restTemplate.getForEntity(
+            baseUrl + "/activations/stats?iccidPrefix=" + prefix, ActivationStatisticsResponse.class);
+        assertEquals(HttpStatus.OK, stats.getStatusCode());
+        assertEquals(0L, stats.getBody().getRangeActive());
+        assertEquals(3L, stats.getBody().getRangeInactive());
+
+        ResponseEntity<SimCardActivationRecord[]> firstPage = restTemplate.getForEntity(
+            baseUrl + "/activations?iccidPrefix=" + prefix + "&size=2", SimCardActivationRecord[].class);
+        assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+        assertEquals(2, firstPage.getBody().length);
+        assertEquals(prefix + "0001", firstPage.getBody()[0].getIccid());
+        assertEquals(prefix + "0002", firstPage.getBody()[1].getIccid());
+        assertNotNull(firstPage.getHeaders().getFirst("Link"), "First page should link to the next");
+
+        ResponseEntity<SimCardActivationRecord[]> lastPage = restTemplate.getForEntity(
+            baseUrl + "/activations?iccidFrom=" + prefix + "0000&iccidTo=" + prefix + "0003&size=2&page=1",
+            SimCardActivationRecord[].class);
+        assertEquals(1, lastPage.getBody().length);
+        assertEquals(prefix + "0003", lastPage.getBody()[0].getIccid());
+        assertNull(lastPage.getHeaders().getFirst("Link"), "Last page should not link further");
+
+        ResponseEntity<String> invalid = restTemplate.getForEntity(
+            baseUrl + "/activations/stats?iccidFrom=" + prefix + "9&iccidTo=" + prefix + "0", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    /**
+     * Test that a record saved while the statistics are rebuilt is counted once,
+     * whether it was saved before or after the rebuild watermark was taken.
+     */
+    @Test
+    void testRecordSavedDuringRebuildIsCountedOnce() {
+        ActivationStatistics reference = new ActivationStatistics();
+        beanFactory.autowireBean(reference);
+        ActivationStatistics rebuilding = new ActivationStatistics();
+        beanFactory.autowireBean(rebuilding);
+
+        // Saved and reported before the rebuild takes its watermark, so the scan also sees it
+        SimCardActivationRecord early = repository.save(new SimCardActivationRecord("rebuild1234567890123", "rebuild@example.com", false));
+        rebuilding.recordSaved(early);
+        rebuilding.run(null);
+        reference.run(null);
+        assertEquals(reference.snapshot(null).getTotal(), rebuilding.snapshot(null).getTotal());
+
+        // Saved after the watermark, so only the live call counts it
+        SimCardActivationRecord late = repository.save(new SimCardActivationRecord("rebuild1234567890124", "rebuild@example.com", true));
+        rebuilding.recordSaved(late);
+        assertEquals(reference.snapshot(null).getTotal() + 1, rebuilding.snapshot(null).getTotal());
+        assertEquals(reference.snapshot(null).getSuccessful() + 1, rebuilding.snapshot(null).getSuccessful());
+    }
+
+    private ActivationStatisticsResponse getStatistics(String customerEmail) {
+        String url = baseUrl + "/activations/stats" + (customerEmail != null ? "?customerEmail=" + customerEmail : "");
+        ResponseEntity<ActivationStatisticsResponse> response =
+            restTemplate.getForEntity(url, ActivationStatisticsResponse.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+}
@@ -0,0 +1,182 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests endpoint selection and passive ejection in the actuator load balancer.
+ */
+public class ActuatorLoadBalancerTest {
+
+    private static final long BASE_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long MAX_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(300);
+    private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static ActuatorLoadBalancer balancer(int endpoints, int maxEjectionPercent) {
+        String[] urls = new String[endpoints];
+        for (int i = 0; i < endpoints; i++) {
+            urls[i] = "http://actuator-" + i + "/actuate";
+        }
+        return new ActuatorLoadBalancer(Arrays.asList(urls), 3, 3.0, BASE_EJECTION_NANOS, MAX_EJECTION_NANOS,
+            maxEjectionPercent);
+    }
+
+    /**
+     * Test that the endpoint with fewer requests in flight is chosen.
+     */
+    @Test
+    void testPrefersFewerOutstandingRequests() {
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+        ActuatorEndpoint busy = balancer.getEndpoints().get(0);
+        ActuatorEndpoint idle = balancer.getEndpoints().get(1);
+        busy.begin();
+        busy.begin();
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(idle, balancer.choose(0));
+        }
+    }
+
+    /**
+     * Test that calls spread over all endpoints when load is even.
+     */
+    @Test
+    void testSpreadsEvenLoad() {
+        ActuatorLoadBalancer balancer = balancer(4, 50);
+        int[] chosen = new int[4];
+
+        for (int i = 0; i < 4000; i++) {
+            ActuatorEndpoint endpoint = balancer.choose(0);
+            chosen[balancer.getEndpoints().indexOf(endpoint)]++;
+        }
+
+        for (int count : chosen) {
+            assertTrue(count > 500, "Endpoint chosen only " + count + " times");
+        }
+    }
+
+    /**
+     * Test that an endpoint is ejected after consecutive failures and readmitted when the ejection expires.
+     */
+    @Test
+    void testEjectsAfterConsecutiveFailures() {
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+        ActuatorEndpoint failing = balancer.getEndpoints().get(0);
+        ActuatorEndpoint healthy = balancer.getEndpoints().get(1);
+
+        balancer.recordFailure(failing, 0);
+        balancer.recordFailure(failing, 0);
+        assertTrue(failing.isAvailable(0));
+        balancer.recordFailure(failing, 0);
+
+        assertFalse(failing.isAvailable(1));
+        assertEquals(1, failing.getEjectionCount());
+        for (int i = 0; i < 100; i++) {
+            assertSame(healthy, balancer.choose(1));
+        }
+        assertTrue(failing.isAvailable(BASE_EJECTION_NANOS));
+    }
+
+    /**
+     * Test that a success resets the consecutive failure count.
+     */
+    @Test
+    void testSuccessResetsFailures() {
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+        ActuatorEndpoint endpoint = balancer.getEndpoints().get(0);
+
+        balancer.recordFailure(endpoint, 0);
+        balancer.recordFailure(endpoint, 0);
+        balancer.recordSuccess(endpoint, FAST_NANOS, 0);
+        balancer.recordFailure(endpoint, 0);
+        balancer.recordFailure(endpoint, 0);
+
+        assertTrue(endpoint.isAvailable(0));
+    }
+
+    /**
+     * Test that repeated ejections last longer each time, up to the maximum.
+     */
+    @Test
+    void testEjectionDurationDoubles() {
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+        ActuatorEndpoint endpoint = balancer.getEndpoints().get(0);
+        long now = 0;
+
+        for (int i = 0; i < 3; i++) {
+            balancer.recordFailure(endpoint, now);
+        }
+        now += BASE_EJECTION_NANOS;
+        for (int i = 0; i < 3; i++) {
+            balancer.recordFailure(endpoint, now);
+        }
+
+        assertFalse(endpoint.isAvailable(now + BASE_EJECTION_NANOS));
+        assertTrue(endpoint.isAvailable(now + 2 * BASE_EJECTION_NANOS));
+    }
+
+    /**
+     * Test that an endpoint much slower than the others is ejected.
+     */
+    @Test
+    void testEjectsLatencyOutlier() {
+        ActuatorLoadBalancer balancer = balancer(3, 50);
+        ActuatorEndpoint slow = balancer.getEndpoints().get(0);
+
+        for (int i = 0; i < 20; i++) {
+            balancer.recordSuccess(balancer.getEndpoints().get(1), FAST_NANOS, 0);
+            balancer.recordSuccess(balancer.getEndpoints().get(2), FAST_NANOS, 0);
+        }
+        for (int i = 0; i < 19; i++) {
+            balancer.recordSuccess(slow, SLOW_NANOS, 0);
+        }
+        assertTrue(slow.isAvailable(0), "Too few samples to judge the endpoint yet");
+        balancer.recordSuccess(slow, SLOW_NANOS, 0);
+
+        assertFalse(slow.isAvailable(1));
+        assertTrue(balancer.getEndpoints().get(1).isAvailable(1));
+    }
+
+    /**
+     * Test that no more than the configured share of endpoints is ejected at once.
+     */
+    @Test
+    void testLimitsEjectedShare() {
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+
+        for (ActuatorEndpoint endpoint : balancer.getEndpoints()) {
+            for (int i = 0; i < 3; i++) {
+                balancer.recordFailure(endpoint, 0);
+            }
+        }
+
+        assertFalse(balancer.getEndpoints().get(0).isAvailable(1));
+        assertTrue(balancer.getEndpoints().get(1).isAvailable(1));
+    }
+
+    /**
+     * Test that a single endpoint is never ejected and calls fail open when nothing is available.
+     */
+    @Test
+    void testFailsOpenWhenNothingAvailable() {
+        ActuatorLoadBalancer single = balancer(1, 50);
+        ActuatorEndpoint only = single.getEndpoints().get(0);
+        for (int i = 0; i < 10; i++) {
+            single.recordFailure(only, 0);
+        }
+        assertFalse(only.isEjected(1));
+        assertSame(only, single.choose(1));
+
+        ActuatorLoadBalancer balancer = balancer(2, 50);
+        for (ActuatorEndpoint endpoint : balancer.getEndpoints()) {
+            balancer.recordProbe(endpoint, false);
+        }
+        assertNotNull(balancer.choose(0));
+        assertNull(balancer.chooseOther(balancer.getEndpoints().get(0), 0));
+    }
+}
@@ -0,0 +1,98 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the adaptive concurrency limit reacts to observed latency.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASELINE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Test that calls over the limit are rejected and counted.
+     */
+    @Test
+    void testRejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.9, 2.0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    /**
+     * Test that the limit grows while latency stays at the baseline and the limit is in use.
+     */
+    @Test
+    void testLimitGrowsAtBaselineLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 50, 0.9, 2.0);
+        long now = 0;
+
+        for (int i = 0; i < 200; i++) {
+            fillToLimit(limiter);
+            now += BASELINE_NANOS;
+            drain(limiter, BASELINE_NANOS, now);
+        }
+
+        assertTrue(limiter.getLimit() > 4, "Limit should have grown, was " + limiter.getLimit());
+    }
+
+    /**
+     * Test that the limit backs off once latency rises above the tolerated baseline.
+     */
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 1, 50, 0.9, 2.0);
+        long now = 0;
+        fillToLimit(limiter);
+        now += BASELINE_NANOS;
+        drain(limiter, BASELINE_NANOS, now);
+
+        for (int i = 0; i < 20; i++) {
+            fillToLimit(limiter);
+            now += BASELINE_NANOS * 5;
+            drain(limiter, BASELINE_NANOS * 5, now);
+        }
+
+        assertTrue(limiter.getLimit() < 20, "Limit should have backed off, was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 1);
+    }
+
+    /**
+     * Test that one burst of dropped calls backs the limit off only once.
+     */
+    @Test
+    void testBurstOfDropsBacksOffOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 50, 0.5, 2.0);
+        limiter.tryAcquire();
+        limiter.release(BASELINE_NANOS, false, 0);
+
+        int acquired = fillToLimit(limiter);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(BASELINE_NANOS, true, BASELINE_NANOS + i);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    private static int fillToLimit(AdaptiveConcurrencyLimiter limiter) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    private static void drain(AdaptiveConcurrencyLimiter limiter, long rttNanos, long nowNanos) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(rttNanos, false, nowNanos);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how activations owned by another cluster node are forwarded when the owner
+ * is slow or unreachable, and that clients cannot forge the forwarded marker.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ClusterForwardingTest {
+
+    private static final String SELF = "http://self.invalid";
+    private static final int SLOW_PEER_DELAY_MS = 2000;
+    private static final long WAIT_MS = 10000;
+
+    private static final AtomicInteger slowPeerRequests = new AtomicInteger();
+    private static HttpServer slowPeer;
+    private static String slowPeerUrl;
+    private static String deadPeerUrl;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private ScheduledActivationService scheduledActivationService;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        slowPeer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        slowPeer.setExecutor(Executors.newCachedThreadPool());
+        slowPeer.createContext("/api/activate", exchange -> {
+            slowPeerRequests.incrementAndGet();
+            try {
+                Thread.sleep(SLOW_PEER_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "Activation SUCCESS".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        slowPeer.start();
+        slowPeerUrl = "http://localhost:" + slowPeer.getAddress().getPort();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            // Nothing listens on this port once the socket is closed
+            deadPeerUrl = "http://localhost:" + socket.getLocalPort();
+        }
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:clusterforwarding");
+        registry.add("activation.cluster.enabled", () -> "true");
+        registry.add("activation.cluster.self", () -> SELF);
+        registry.add("activation.cluster.peers", () -> SELF + "," + slowPeerUrl + "," + deadPeerUrl);
+        registry.add("activation.cluster.secret", () -> "cluster-test-secret");
+        registry.add("activation.cluster.forward-timeout-ms", () -> 300);
+        registry.add("activation.import.max-attempts", () -> 2);
+    }
+
+    @AfterAll
+    static void stopPeer() {
+        slowPeer.stop(0);
+    }
+
+    /**
+     * Test that an owner that accepts the request but does not answer in time gives 503
+     * and the ICCID is not activated locally as well.
+     */
+    @Test
+    void testOwnerTimeoutReturnsServiceUnavailable() {
+        String iccid = iccidOwnedBy(slowPeerUrl, 0);
+
+        ResponseEntity<String> response = activate(iccid, new HttpHeaders());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(slowPeerUrl, response.getHeaders().getFirst(ClusterRouter.NODE_HEADER));
+        assertFalse(activationService.isActivationRecorded(iccid), "Owner may still be activating, so nothing local");
+    }
+
+    /**
+     * Test that an owner refusing connections is bypassed and the ICCID is activated locally.
+     */
+    @Test
+    void testUnreachableOwnerActivatesLocally() {
+        String iccid = iccidOwnedBy(deadPeerUrl, 0);
+
+        ResponseEntity<String> response = activate(iccid, new HttpHeaders());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(activationService.isActivationRecorded(iccid));
+    }
+
+    /**
+     * Test that a client-supplied forwarded marker without a valid signature is ignored.
+     */
+    @Test
+    void testUnsignedForwardedHeaderIsIgnored() {
+        String iccid = iccidOwnedBy(slowPeerUrl, 1);
+        int before = slowPeerRequests.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(ClusterRouter.FORWARDED_HEADER, slowPeerUrl);
+        headers.add(ClusterRouter.SIGNATURE_HEADER, "forged");
+
+        ResponseEntity<String> response = activate(iccid, headers);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(before + 1, slowPeerRequests.get(), "Request should still be forwarded to the owner");
+        assertFalse(activationService.isActivationRecorded(iccid));
+    }
+
+    /**
+     * Test that an import row for an ICCID owned by another node is sent to the owner
+     * rather than activated locally.
+     */
+    @Test
+    void testImportRowIsRoutedToOwner() {
+        String iccid = iccidOwnedBy(slowPeerUrl, 2);
+        int before = slowPeerRequests.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/api/activations/import",
+            new HttpEntity<>(iccid + ",cluster@example.com\n", headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(slowPeerRequests.get() > before, "Row should be forwarded to the owner");
+        assertTrue(response.getBody().contains(iccid + ",REJECTED"), response.getBody());
+        assertFalse(activationService.isActivationRecorded(iccid), "Row should not be activated locally");
+    }
+
+    /**
+     * Test that a scheduled activation for an ICCID owned by another node is released
+     * on the owner rather than activated locally.
+     */
+    @Test
+    void testScheduledReleaseIsRoutedToOwner() throws InterruptedException {
+        String iccid = iccidOwnedBy(slowPeerUrl, 3);
+        int before = slowPeerRequests.get();
+
+        scheduledActivationService.schedule(iccid, "cluster@example.com", LocalDateTime.now().plusNanos(100_000_000));
+
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (slowPeerRequests.get() == before) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Scheduled release was not forwarded to the owner");
+            }
+            Thread.sleep(20);
+        }
+        assertFalse(activationService.isActivationRecorded(iccid), "Release should not activate locally");
+    }
+
+    private ResponseEntity<String> activate(String iccid, HttpHeaders headers) {
+        return restTemplate.postForEntity("http://localhost:" + port + "/api/activate",
+            new HttpEntity<>(new SimCardActivationRequest(iccid, "cluster@example.com"), headers), String.class);
+    }
+
+    private static String iccidOwnedBy(String owner, int skip) {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(SELF, slowPeerUrl, deadPeerUrl), 128);
+        int found = 0;
+        for (int i = 0; ; i++) {
+            String iccid = String.format("cluster%013d", i);
+            if (ring.ownerOf(iccid).equals(owner) && found++ == skip) {
+                return iccid;
+            }
+        }
+    }
+}
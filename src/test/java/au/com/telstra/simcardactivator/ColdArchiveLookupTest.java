@@ -0,0 +1,83 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that records held only by the cold archive are found by the activation service,
+ * and that writing a partition again keeps the records already in its segment.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:coldarchivelookup",
+    "activation.archive.cold.enabled=true",
+    "activation.archive.cold.directory=target/cold-archive-lookup"
+})
+@ActiveProfiles("test")
+public class ColdArchiveLookupTest {
+
+    private static final int PARTITION = 201901;
+
+    @Autowired
+    private ColdArchive coldArchive;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private SimCardActivationRepository repository;
+
+    /**
+     * Test that a record only present in a cold segment is returned by lookups and
+     * answers a repeat activation without a new hot record.
+     */
+    @Test
+    void testRecordOnlyInColdTierIsFound() throws Exception {
+        String iccid = "coldonly12345678901";
+        coldArchive.writeSegment(PARTITION, Collections.singletonList(coldRecord(900001L, iccid)).iterator());
+
+        Optional<SimCardActivationRecord> found = activationService.getActivationRecordByIccid(iccid);
+        assertTrue(found.isPresent(), "Cold record should be found by ICCID");
+        assertTrue(found.get().isActive());
+        assertTrue(activationService.isActivationRecorded(iccid));
+
+        assertTrue(activationService.activateSimCard(iccid, "cold@example.com"),
+                  "Re-activation should return the cold result");
+        assertFalse(repository.existsByIccid(iccid), "No new hot record should be created");
+    }
+
+    /**
+     * Test that rows archived later for a partition are merged into its segment rather than replacing it.
+     */
+    @Test
+    void testRewritingPartitionKeepsEarlierRecords() throws Exception {
+        String first = "coldmerge1234567891";
+        String second = "coldmerge1234567892";
+        coldArchive.writeSegment(PARTITION + 1, Collections.singletonList(coldRecord(900002L, first)).iterator());
+        long size = coldArchive.writeSegment(PARTITION + 1, Collections.singletonList(coldRecord(900003L, second)).iterator());
+
+        assertEquals(2, size);
+        assertTrue(coldArchive.find(first).isPresent(), "Earlier record should survive the rewrite");
+        assertTrue(coldArchive.find(second).isPresent());
+
+        // A retried move of rows already in the segment does not store them twice
+        assertEquals(2, coldArchive.writeSegment(PARTITION + 1,
+            Collections.singletonList(coldRecord(900003L, second)).iterator()));
+    }
+
+    private static SimCardActivationRecord coldRecord(long id, String iccid) {
+        SimCardActivationRecord record = new SimCardActivationRecord(iccid, "cold@example.com", true);
+        record.setId(id);
+        record.setActivationTimestamp(LocalDateTime.of(2019, 1, 15, 10, 30));
+        record.setActuatorResponse("ActuatorResponse{success=true}");
+        record.setVersion(0L);
+        return record;
+    }
+}
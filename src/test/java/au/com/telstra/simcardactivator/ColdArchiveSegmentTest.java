@@ -0,0 +1,87 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests writing and reading compressed cold archive segment files.
+ */
+public class ColdArchiveSegmentTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test that every record in a multi-block segment can be found by ICCID.
+     */
+    @Test
+    void testWriteAndFind() throws Exception {
+        List<SimCardActivationRecord> records = new ArrayList<>();
+        LocalDateTime timestamp = LocalDateTime.of(2023, 1, 15, 10, 30, 45, 123456789);
+        for (int i = 0; i < 1000; i++) {
+            SimCardActivationRecord record = new SimCardActivationRecord(
+                String.format("89445001021983%05d", i * 2), "cold" + i + "@example.com", i % 3 != 0);
+            record.setId((long) i + 1);
+            record.setActivationTimestamp(timestamp);
+            record.setActuatorResponse(i % 5 == 0 ? null : "ActuatorResponse{success=true}");
+            record.setVersion(0L);
+            records.add(record);
+        }
+
+        Path file = tempDir.resolve("activations-202301.seg");
+        assertEquals(1000, ColdArchiveSegment.write(file, records.iterator()));
+
+        try (ColdArchiveSegment segment = ColdArchiveSegment.open(file)) {
+            assertEquals(1000, segment.getRecordCount());
+            for (SimCardActivationRecord expected : records) {
+                Optional<SimCardActivationRecord> found = segment.find(expected.getIccid());
+                assertTrue(found.isPresent(), "Should find " + expected.getIccid());
+                assertEquals(expected.getId(), found.get().getId());
+                assertEquals(expected.getCustomerEmail(), found.get().getCustomerEmail());
+                assertEquals(expected.isActive(), found.get().isActive());
+                assertEquals(expected.getActuatorResponse(), found.get().getActuatorResponse());
+                assertEquals(timestamp, found.get().getActivationTimestamp());
+            }
+
+            // Odd suffixes fall between stored ICCIDs; the others lie outside the segment range
+            assertFalse(segment.find("8944500102198300001").isPresent());
+            assertFalse(segment.find("0000000000000000000").isPresent());
+            assertFalse(segment.find("9999999999999999999").isPresent());
+
+            List<String> visited = new ArrayList<>();
+            segment.forEach(record -> visited.add(record.getIccid()));
+            assertEquals(1000, visited.size());
+            List<String> iterated = new ArrayList<>();
+            segment.iterator().forEachRemaining(record -> iterated.add(record.getIccid()));
+            assertEquals(visited, iterated);
+
+            // A range spanning a block boundary visits exactly the ICCIDs inside it
+            List<String> inRange = new ArrayList<>();
+            segment.forEachInRange("8944500102198300250", "8944500102198300300", record -> inRange.add(record.getIccid()));
+            assertEquals(25, inRange.size());
+            assertEquals("8944500102198300250", inRange.get(0));
+            assertEquals("8944500102198300298", inRange.get(24));
+        }
+    }
+
+    /**
+     * Test that unsorted input is rejected.
+     */
+    @Test
+    void testRejectsUnsortedRecords() {
+        List<SimCardActivationRecord> records = List.of(
+            new SimCardActivationRecord("2", "b@example.com", true),
+            new SimCardActivationRecord("1", "a@example.com", true));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ColdArchiveSegment.write(tempDir.resolve("activations-bad.seg"), records.iterator()));
+    }
+}
@@ -0,0 +1,133 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ETag and Last-Modified handling on the activation lookup endpoints.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ConditionalGetTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that the ICCID lookup returns validators and honours If-None-Match.
+     */
+    @Test
+    void testConditionalGetByIccid() {
+        String testIccid = "etag1234567890123456";
+        activationService.activateSimCard(testIccid, "etag@example.com");
+
+        ResponseEntity<String> first = restTemplate.getForEntity(baseUrl + "/activations/" + testIccid, String.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag, "Response should carry an ETag");
+        assertTrue(first.getHeaders().getLastModified() > 0, "Response should carry Last-Modified");
+
+        ResponseEntity<String> revalidated = getWithIfNoneMatch(baseUrl + "/activations/" + testIccid, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(etag, revalidated.getHeaders().getETag());
+        assertNull(revalidated.getBody(), "304 response should not carry a body");
+
+        ResponseEntity<String> stale = getWithIfNoneMatch(baseUrl + "/activations/" + testIccid, "\"0-99\"");
+        assertEquals(HttpStatus.OK, stale.getStatusCode());
+        assertNotNull(stale.getBody());
+    }
+
+    /**
+     * Test that the SIM card lookup by ID honours If-None-Match.
+     */
+    @Test
+    void testConditionalGetById() {
+        String testIccid = "etag6543210987654321";
+        activationService.activateSimCard(testIccid, "etag@example.com");
+
+        Optional<SimCardActivationRecord> record = activationService.getActivationRecordByIccid(testIccid);
+        assertTrue(record.isPresent(), "Test record should exist");
+        String url = baseUrl + "/simcard/" + record.get().getId();
+
+        ResponseEntity<String> first = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag, "Response should carry an ETag");
+
+        ResponseEntity<String> revalidated = getWithIfNoneMatch(url, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+    }
+
+    /**
+     * Test that If-Modified-Since alone gives 304 when the record has not changed since,
+     * and the full record when it has.
+     */
+    @Test
+    void testConditionalGetByIfModifiedSince() {
+        String testIccid = "etag1122334455667788";
+        activationService.activateSimCard(testIccid, "etag@example.com");
+        String url = baseUrl + "/activations/" + testIccid;
+
+        ResponseEntity<String> first = restTemplate.getForEntity(url, String.class);
+        long lastModified = first.getHeaders().getLastModified();
+        assertTrue(lastModified > 0, "Response should carry Last-Modified");
+
+        ResponseEntity<String> revalidated = getWithIfModifiedSince(url, lastModified);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertEquals(first.getHeaders().getETag(), revalidated.getHeaders().getETag());
+        assertEquals(lastModified, revalidated.getHeaders().getLastModified());
+        assertNull(revalidated.getBody(), "304 response should not carry a body");
+
+        ResponseEntity<String> stale = getWithIfModifiedSince(url, lastModified - 60_000);
+        assertEquals(HttpStatus.OK, stale.getStatusCode());
+        assertNotNull(stale.getBody());
+    }
+
+    /**
+     * Test that conditional requests for unknown records still return 404.
+     */
+    @Test
+    void testConditionalGetForMissingRecord() {
+        ResponseEntity<String> response = getWithIfNoneMatch(baseUrl + "/activations/missing-etag-iccid", "*");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private ResponseEntity<String> getWithIfNoneMatch(String url, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private ResponseEntity<String> getWithIfModifiedSince(String url, long ifModifiedSince) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfModifiedSince(ifModifiedSince);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -0,0 +1,56 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ICCID ownership assignment on the consistent-hash ring.
+ */
+public class ConsistentHashRingTest {
+
+    private static final List<String> PEERS = Arrays.asList(
+        "http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+
+    /**
+     * Test that every node computes the same owner and that keys spread across all nodes.
+     */
+    @Test
+    void testOwnershipIsStableAndBalanced() {
+        ConsistentHashRing ring = new ConsistentHashRing(PEERS, 128);
+        ConsistentHashRing sameRing = new ConsistentHashRing(PEERS, 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30000; i++) {
+            String iccid = String.format("89445001021983%05d", i);
+            String owner = ring.ownerOf(iccid);
+            assertEquals(owner, sameRing.ownerOf(iccid));
+            counts.merge(owner, 1, Integer::sum);
+        }
+
+        assertEquals(PEERS.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > 5000, "Unbalanced ring: " + counts));
+    }
+
+    /**
+     * Test that removing a node only moves the keys it owned.
+     */
+    @Test
+    void testRemovingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(PEERS, 128);
+        ConsistentHashRing shrunk = new ConsistentHashRing(PEERS.subList(0, 2), 128);
+
+        for (int i = 0; i < 10000; i++) {
+            String iccid = String.format("89445001021983%05d", i);
+            String owner = ring.ownerOf(iccid);
+            if (!owner.equals(PEERS.get(2))) {
+                assertEquals(owner, shrunk.ownerOf(iccid));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests case-insensitive customer lookups through the customer email hash index.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CustomerEmailLookupTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private SimCardActivationRepository repository;
+
+    @Autowired
+    private CustomerEmailBackfill backfill;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that records are found regardless of the case and whitespace of the email.
+     */
+    @Test
+    void testLookupIgnoresCase() {
+        activationService.activateSimCard("mail1234567890123456", "Mixed.Case@Example.com");
+        activationService.activateSimCard("mail1234567890123457", "mixed.case@example.com ");
+
+        ResponseEntity<SimCardActivationRecord[]> response = restTemplate.getForEntity(
+            baseUrl + "/activations?customerEmail=MIXED.CASE@example.COM", SimCardActivationRecord[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().length);
+    }
+
+    /**
+     * Test that records stored without an email hash become findable after the backfill.
+     */
+    @Test
+    void testBackfillOfExistingRows() {
+        SimCardActivationRecord legacy = new SimCardActivationRecord("mail6543210987654321", "Legacy@Example.com", true);
+        repository.save(legacy);
+        assertTrue(activationService.getActivationRecordsByCustomerEmail("legacy@example.com").isEmpty(),
+            "Rows without a hash should not be found before the backfill");
+
+        backfill.backfill();
+
+        List<SimCardActivationRecord> records = activationService.getActivationRecordsByCustomerEmail("legacy@example.com");
+        assertEquals(1, records.size());
+        assertEquals("mail6543210987654321", records.get(0).getIccid());
+        assertEquals(0L, records.get(0).getVersion(), "Backfill should not bump the record version");
+    }
+}
@@ -0,0 +1,73 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests when timers on the hashed timing wheel become ready.
+ */
+public class HashedTimingWheelTest {
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 8;
+
+    /**
+     * Test that a timer becomes ready on the first advance at or after its deadline, never before.
+     */
+    @Test
+    void testTimerFiresAtDeadline() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE, 0);
+        wheel.schedule(1, 250);
+
+        assertEquals(0, wheel.advance(249));
+        assertEquals(1, wheel.advance(300));
+        assertEquals(Arrays.asList(1L), poll(wheel, 10));
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    /**
+     * Test that timers further away than one revolution wait for their own round.
+     */
+    @Test
+    void testTimerBeyondOneRevolution() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE, 0);
+        long revolution = TICK_MILLIS * WHEEL_SIZE;
+        wheel.schedule(1, 200);
+        wheel.schedule(2, 200 + revolution * 3);
+
+        assertEquals(1, wheel.advance(200 + revolution * 3 - 1));
+        assertEquals(1, wheel.pendingCount());
+        assertEquals(1, wheel.advance(200 + revolution * 3));
+        assertEquals(Arrays.asList(1L, 2L), poll(wheel, 10));
+    }
+
+    /**
+     * Test that past deadlines fire on the next advance and the ready queue is drained in batches.
+     */
+    @Test
+    void testPastDeadlinesDrainInBatches() {
+        HashedTimingWheel wheel = new HashedTimingWheel(TICK_MILLIS, WHEEL_SIZE, 1_000);
+        wheel.advance(1_000);
+        for (long id = 0; id < 5_000; id++) {
+            wheel.schedule(id, 0);
+        }
+
+        assertEquals(5_000, wheel.advance(1_000 + TICK_MILLIS));
+        assertEquals(2_000, poll(wheel, 2_000).size());
+        assertEquals(3_000, wheel.readyCount());
+        List<Long> rest = poll(wheel, 10_000);
+        assertEquals(3_000, rest.size());
+        assertEquals(2_000L, rest.get(0));
+    }
+
+    private static List<Long> poll(HashedTimingWheel wheel, int max) {
+        List<Long> ids = new ArrayList<>();
+        wheel.pollReady(max, ids::add);
+        return ids;
+    }
+}
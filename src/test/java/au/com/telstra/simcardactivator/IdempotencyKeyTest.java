@@ -0,0 +1,142 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests Idempotency-Key handling on the activation endpoint.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class IdempotencyKeyTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that a retry with the same key and body replays the stored response
+     * without creating another record.
+     */
+    @Test
+    void testRetryReplaysStoredResponse() {
+        SimCardActivationRequest request = new SimCardActivationRequest("idem12345678901234", "idem@example.com");
+
+        ResponseEntity<String> first = activate(request, "key-replay");
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNull(first.getHeaders().getFirst("Idempotent-Replayed"));
+
+        ResponseEntity<String> retry = activate(request, "key-replay");
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+
+        List<SimCardActivationRecord> records = activationService.getActivationRecordsByCustomerEmail("idem@example.com");
+        assertEquals(1, records.stream().filter(r -> r.getIccid().equals("idem12345678901234")).count(),
+                    "Only one record should be created");
+    }
+
+    /**
+     * Test that reusing a key with a different body is rejected.
+     */
+    @Test
+    void testKeyReuseWithDifferentBody() {
+        activate(new SimCardActivationRequest("idem11111111111111", "idem@example.com"), "key-reuse");
+
+        ResponseEntity<String> reused = activate(
+            new SimCardActivationRequest("idem22222222222222", "idem@example.com"), "key-reuse");
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+    }
+
+    /**
+     * Test that validation errors are also replayed for the same key.
+     */
+    @Test
+    void testValidationErrorIsReplayed() {
+        SimCardActivationRequest request = new SimCardActivationRequest("idem33333333333333", null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, activate(request, "key-invalid").getStatusCode());
+        ResponseEntity<String> retry = activate(request, "key-invalid");
+        assertEquals(HttpStatus.BAD_REQUEST, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+    }
+
+    /**
+     * Test that a retry waiting on a request that fails without a response gets a server
+     * error, and that the key can then be used again.
+     */
+    @Test
+    void testRetryOfFailedRequestIsServerError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> original = CompletableFuture.runAsync(() ->
+            idempotencyStore.execute("key-failed", "body", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("Simulated failure");
+            }));
+        // The original now holds the key until it is released
+        assertTrue(started.await(5, TimeUnit.SECONDS), "The original request should start");
+        FutureTask<ResponseEntity<String>> retry = new FutureTask<>(() ->
+            idempotencyStore.execute("key-failed", "body", () -> ResponseEntity.ok("unexpected")));
+        Thread retryThread = new Thread(retry, "idempotency-retry");
+        retryThread.start();
+        // The retry only parks in a timed wait once it is waiting on the in-flight request
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (retryThread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "The retry should wait on the original request");
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThrows(ExecutionException.class, () -> original.get(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, retry.get(5, TimeUnit.SECONDS).getStatusCode());
+        ResponseEntity<String> again = idempotencyStore.execute("key-failed", "body", () -> ResponseEntity.ok("done"));
+        assertEquals("done", again.getBody());
+    }
+
+    private ResponseEntity<String> activate(SimCardActivationRequest request, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Idempotency-Key", idempotencyKey);
+        return restTemplate.postForEntity(baseUrl + "/activate", new HttpEntity<>(request, headers), String.class);
+    }
+}
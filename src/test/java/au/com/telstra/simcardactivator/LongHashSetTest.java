@@ -0,0 +1,83 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the on-heap primitive long set.
+ */
+public class LongHashSetTest {
+
+    /**
+     * Test that added keys are found, removed keys are not, and duplicates are not counted twice.
+     */
+    @Test
+    void testAddRemoveAndContains() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.add(0L));
+        assertTrue(set.add(-1L));
+        assertEquals(3, set.size());
+
+        assertTrue(set.remove(42L));
+        assertFalse(set.remove(42L));
+        assertTrue(set.remove(0L));
+
+        assertFalse(set.contains(42L));
+        assertFalse(set.contains(0L));
+        assertTrue(set.contains(-1L));
+        assertEquals(1, set.size());
+    }
+
+    /**
+     * Test that random adds and removes of sequential ids agree with a reference set,
+     * so removal never breaks a probe run.
+     */
+    @Test
+    void testMatchesReferenceUnderChurn() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(key), set.add(key));
+            } else {
+                assertEquals(reference.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(reference.size(), set.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertEquals(reference.contains(key), set.contains(key), "Key " + key);
+        }
+    }
+
+    /**
+     * Test that the table grows for a burst of ids and gives the memory back once they are removed.
+     */
+    @Test
+    void testShrinksAfterBurst() {
+        LongHashSet set = new LongHashSet();
+        int count = 1_000_000;
+
+        for (long id = 1; id <= count; id++) {
+            set.add(id);
+        }
+        assertTrue(set.capacity() <= count * 8 / 3, "Table should stay at least three eighths full");
+        for (long id = 1; id <= count; id++) {
+            assertTrue(set.remove(id));
+        }
+
+        assertEquals(0, set.size());
+        assertEquals(16, set.capacity());
+    }
+}
@@ -0,0 +1,111 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests activations balanced over several local stub actuators, one of which fails
+ * every call and one of which is not listening at all.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class MultipleActuatorTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final int ACTIVATIONS = 60;
+
+    private static HttpServer healthyA;
+    private static HttpServer healthyB;
+    private static HttpServer failing;
+    private static final AtomicInteger healthyACalls = new AtomicInteger();
+    private static final AtomicInteger healthyBCalls = new AtomicInteger();
+    private static final AtomicInteger failingCalls = new AtomicInteger();
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private ActuatorClient actuatorClient;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        healthyA = stub(200, "{\"success\":true}", healthyACalls);
+        healthyB = stub(200, "{\"success\":true}", healthyBCalls);
+        failing = stub(500, "{}", failingCalls);
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        String urls = String.join(",", url(healthyA), url(healthyB), url(failing),
+            "http://localhost:" + closedPort + "/actuate");
+        registry.add("actuator.service.urls", () -> urls);
+        registry.add("actuator.balancer.failure-threshold", () -> FAILURE_THRESHOLD);
+        registry.add("actuator.health.enabled", () -> false);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:multipleactuators");
+    }
+
+    private static HttpServer stub(int status, String response, AtomicInteger calls) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/actuate", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                calls.incrementAndGet();
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static String url(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort() + "/actuate";
+    }
+
+    @AfterAll
+    static void stopActuators() {
+        healthyA.stop(0);
+        healthyB.stop(0);
+        failing.stop(0);
+    }
+
+    /**
+     * Test that a failing endpoint is ejected after a few calls, refused connections are
+     * retried on another endpoint, and the healthy endpoints share the remaining load.
+     */
+    @Test
+    void testFailingEndpointsLeaveRotation() {
+        int failed = 0;
+        for (int i = 0; i < ACTIVATIONS; i++) {
+            if (!activationService.activateSimCard(String.format("multi%015d", i), "multi@example.com")) {
+                failed++;
+            }
+        }
+
+        assertEquals(4, actuatorClient.getEndpoints().size());
+        assertTrue(failingCalls.get() <= FAILURE_THRESHOLD, "Failing endpoint saw " + failingCalls.get() + " calls");
+        assertEquals(failingCalls.get(), failed, "Only calls to the failing endpoint should fail");
+        assertTrue(healthyACalls.get() > 0 && healthyBCalls.get() > 0, "Both healthy endpoints should take calls");
+        assertEquals(ACTIVATIONS, healthyACalls.get() + healthyBCalls.get() + failingCalls.get());
+    }
+}
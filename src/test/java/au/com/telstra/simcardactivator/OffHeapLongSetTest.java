@@ -0,0 +1,72 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the off-heap primitive long set.
+ */
+public class OffHeapLongSetTest {
+
+    /**
+     * Test that added keys are found, absent keys are not, and duplicates are not counted twice.
+     */
+    @Test
+    void testAddAndContains() {
+        OffHeapLongSet set = new OffHeapLongSet(16);
+
+        assertTrue(set.add(8944500102198304826L));
+        assertFalse(set.add(8944500102198304826L));
+        assertTrue(set.add(0L));
+        assertTrue(set.add(-1L));
+
+        assertTrue(set.contains(8944500102198304826L));
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(-1L));
+        assertFalse(set.contains(8944500102198304827L));
+        assertEquals(3, set.size());
+    }
+
+    /**
+     * Test that segments grow past their initial capacity without losing keys.
+     */
+    @Test
+    void testGrowsWithSequentialKeys() {
+        OffHeapLongSet set = new OffHeapLongSet(16);
+        long base = 8944500102198300000L;
+        int count = 500_000;
+        long initialBytes = set.offHeapBytes();
+
+        for (int i = 0; i < count; i++) {
+            set.add(base + i);
+        }
+
+        assertEquals(count, set.size());
+        assertTrue(set.offHeapBytes() > initialBytes, "Segments should have grown");
+        for (int i = 0; i < count; i++) {
+            assertTrue(set.contains(base + i), "Missing key " + (base + i));
+        }
+        assertFalse(set.contains(base + count));
+        assertFalse(set.contains(base - 1));
+    }
+
+    /**
+     * Test that a set sized for N keys holds them at the load factor without growing or rounding up.
+     */
+    @Test
+    void testSizedForExpectedKeys() {
+        int expected = 1_000_000;
+        OffHeapLongSet set = new OffHeapLongSet(expected);
+        long initialBytes = set.offHeapBytes();
+
+        assertTrue(initialBytes <= expected / 0.75 * Long.BYTES * 1.05,
+            "Set should not be rounded up past the load factor, got " + initialBytes + " bytes");
+        for (int i = 1; i <= expected; i++) {
+            set.add(i * 0x9e3779b97f4a7c15L);
+        }
+
+        assertEquals(expected, set.size());
+        assertEquals(initialBytes, set.offHeapBytes(), "Set should not have grown");
+    }
+}
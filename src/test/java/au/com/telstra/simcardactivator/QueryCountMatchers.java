@@ -0,0 +1,59 @@
+package au.com.telstra.simcardactivator;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MockMvc result matchers asserting the persistence cost of a request, as recorded
+ * by {@link PersistenceStatsFilter}. Use them to pin the statement count of each
+ * endpoint, so query-count regressions fail the build:
+ * <pre>
+ * mockMvc.perform(get("/api/activations/{iccid}", iccid))
+ *     .andExpect(status().isOk())
+ *     .andExpect(QueryCountMatchers.statements(1));
+ * </pre>
+ */
+public final class QueryCountMatchers {
+
+    private QueryCountMatchers() {}
+
+    /**
+     * Asserts the exact number of SQL statements issued by the request.
+     *
+     * @param expected the expected statement count
+     * @return the matcher
+     */
+    public static ResultMatcher statements(long expected) {
+        return result -> assertEquals(expected, queryCount(result).getStatements(),
+            "Unexpected statement count for " + describe(result));
+    }
+
+    /**
+     * Asserts the exact number of rows fetched by the request.
+     *
+     * @param expected the expected row count
+     * @return the matcher
+     */
+    public static ResultMatcher rows(long expected) {
+        return result -> assertEquals(expected, queryCount(result).getRows(),
+            "Unexpected row count for " + describe(result));
+    }
+
+    /**
+     * Returns the query count recorded for a request.
+     *
+     * @param result the MockMvc result
+     * @return the query count
+     */
+    public static QueryCount queryCount(MvcResult result) {
+        Object count = result.getRequest().getAttribute(QueryCount.REQUEST_ATTRIBUTE);
+        assertNotNull(count, "No query count recorded for " + describe(result));
+        return (QueryCount) count;
+    }
+
+    private static String describe(MvcResult result) {
+        return result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+    }
+}
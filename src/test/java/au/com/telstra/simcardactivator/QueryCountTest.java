@@ -0,0 +1,65 @@
+package au.com.telstra.simcardactivator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Pins the number of SQL statements issued by the activation endpoints.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:querycount")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Test that a new activation is recognised as new without a query and inserts once,
+     * and that a repeat activation is answered without touching the database.
+     */
+    @Test
+    void testActivationStatementCounts() throws Exception {
+        String body = objectMapper.writeValueAsString(new SimCardActivationRequest("count1234567890123456", "count@example.com"));
+
+        mockMvc.perform(post("/api/activate").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(QueryCountMatchers.statements(1))
+            .andExpect(QueryCountMatchers.rows(0));
+
+        mockMvc.perform(post("/api/activate").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(QueryCountMatchers.statements(0));
+    }
+
+    /**
+     * Test that a lookup by ICCID issues a single query and that statistics are served from memory.
+     */
+    @Test
+    void testLookupStatementCounts() throws Exception {
+        String body = objectMapper.writeValueAsString(new SimCardActivationRequest("count1234567890123457", "count@example.com"));
+        mockMvc.perform(post("/api/activate").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/activations/{iccid}", "count1234567890123457"))
+            .andExpect(status().isOk())
+            .andExpect(QueryCountMatchers.statements(1))
+            .andExpect(QueryCountMatchers.rows(1));
+
+        mockMvc.perform(get("/api/activations/stats"))
+            .andExpect(status().isOk())
+            .andExpect(QueryCountMatchers.statements(0));
+    }
+}
@@ -0,0 +1,148 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that activations whose caller has stopped waiting are not carried out.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class RequestDeadlineTest {
+
+    private static final int ACTUATOR_DELAY_MS = 500;
+
+    private static HttpServer actuator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String baseUrl;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.createContext("/actuate", exchange -> {
+            try {
+                Thread.sleep(ACTUATOR_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        actuator.start();
+        registry.add("actuator.service.url", () -> "http://localhost:" + actuator.getAddress().getPort() + "/actuate");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:requestdeadline");
+    }
+
+    @AfterAll
+    static void stopActuator() {
+        actuator.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that an exhausted deadline returns 504, records nothing and is counted as skipped.
+     */
+    @Test
+    void testExpiredDeadlineSkipsActivation() {
+        String iccid = "deadline1234567890123";
+        double skippedBefore = skippedCount();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RequestDeadline.TIMEOUT_HEADER, "0");
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/activate",
+            new HttpEntity<>(new SimCardActivationRequest(iccid, "deadline@example.com"), headers), String.class);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        assertEquals(skippedBefore + 1, skippedCount());
+        ResponseEntity<String> lookup = restTemplate.getForEntity(baseUrl + "/activations/" + iccid, String.class);
+        assertEquals(HttpStatus.NOT_FOUND, lookup.getStatusCode(), "Nothing should be recorded for the ICCID");
+
+        ResponseEntity<String> retry = restTemplate.postForEntity(baseUrl + "/activate",
+            new SimCardActivationRequest(iccid, "deadline@example.com"), String.class);
+        assertEquals(HttpStatus.OK, retry.getStatusCode(), "A retry within the default budget should be processed");
+    }
+
+    /**
+     * Test that a deadline running out during the actuator call returns 504 and records the
+     * activation as failed with an unknown outcome, and that a retry calls the actuator again
+     * and records its result.
+     */
+    @Test
+    void testDeadlineExpiringMidCallIsRecorded() {
+        String iccid = "deadline1234567890124";
+        double abortedBefore = abortedCount();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RequestDeadline.TIMEOUT_HEADER, "300");
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/activate",
+            new HttpEntity<>(new SimCardActivationRequest(iccid, "deadline@example.com"), headers), String.class);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        assertEquals(abortedBefore + 1, abortedCount());
+        ResponseEntity<SimCardActivationRecord> lookup = restTemplate.getForEntity(
+            baseUrl + "/activations/" + iccid, SimCardActivationRecord.class);
+        assertEquals(HttpStatus.OK, lookup.getStatusCode(), "The abandoned call should be recorded");
+        assertFalse(lookup.getBody().isActive());
+        assertTrue(lookup.getBody().getActuatorResponse().contains("outcome unknown"));
+
+        ResponseEntity<String> retry = restTemplate.postForEntity(baseUrl + "/activate",
+            new SimCardActivationRequest(iccid, "deadline@example.com"), String.class);
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertTrue(retry.getBody().contains("SUCCESS"), "A retry should re-check the unknown outcome");
+        ResponseEntity<SimCardActivationRecord> resolved = restTemplate.getForEntity(
+            baseUrl + "/activations/" + iccid, SimCardActivationRecord.class);
+        assertTrue(resolved.getBody().isActive(), "The re-checked result should replace the unknown outcome");
+
+        ResponseEntity<String> repeat = restTemplate.postForEntity(baseUrl + "/activate",
+            new SimCardActivationRequest(iccid, "deadline@example.com"), String.class);
+        assertTrue(repeat.getBody().contains("SUCCESS"), "A resolved activation should not be repeated");
+    }
+
+    private double skippedCount() {
+        return meterRegistry.counter("activation.deadline.exceeded", "outcome", "skipped").count();
+    }
+
+    private double abortedCount() {
+        return meterRegistry.counter("activation.deadline.exceeded", "outcome", "aborted").count();
+    }
+}
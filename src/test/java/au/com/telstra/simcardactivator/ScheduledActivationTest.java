@@ -0,0 +1,168 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests activations requested for a future time, from the 202 response to their release.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ScheduledActivationTest {
+
+    private static final long RELEASE_TIMEOUT_MS = 10000;
+
+    // Actuator calls received per ICCID
+    private static final Map<String, AtomicInteger> actuatorCalls = new ConcurrentHashMap<>();
+    private static HttpServer actuator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ScheduledActivationService scheduledActivationService;
+
+    @Autowired
+    private ScheduledActivationRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String baseUrl;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.createContext("/actuate", exchange -> {
+            String request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            String iccid = request.replaceAll(".*\"iccid\"\\s*:\\s*\"([^\"]*)\".*", "$1");
+            actuatorCalls.computeIfAbsent(iccid, key -> new AtomicInteger()).incrementAndGet();
+            byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        actuator.start();
+        registry.add("actuator.service.url", () -> "http://localhost:" + actuator.getAddress().getPort() + "/actuate");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:scheduledactivation");
+        registry.add("activation.schedule.tick-ms", () -> 20);
+    }
+
+    @AfterAll
+    static void stopActuator() {
+        actuator.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that a future activation is answered with 202 and a Location, stays PENDING
+     * until it is due, and is then activated.
+     */
+    @Test
+    void testScheduledActivationReleasedWhenDue() throws InterruptedException {
+        String iccid = "scheduled123456789001";
+        LocalDateTime activateAt = LocalDateTime.now().plusSeconds(1);
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/activate",
+            new SimCardActivationRequest(iccid, "scheduled@example.com", activateAt), String.class);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        URI location = response.getHeaders().getLocation();
+        assertNotNull(location);
+        assertTrue(location.getPath().startsWith("/api/activations/scheduled/"));
+        ResponseEntity<ScheduledActivation> pending = restTemplate.getForEntity(
+            "http://localhost:" + port + location.getPath(), ScheduledActivation.class);
+        assertEquals(HttpStatus.OK, pending.getStatusCode());
+        assertEquals(ScheduledActivation.Status.PENDING, pending.getBody().getStatus());
+        assertNull(actuatorCalls.get(iccid), "Nothing should be activated before the due time");
+
+        ScheduledActivation released = awaitCompletion(pending.getBody().getId());
+
+        assertEquals(ScheduledActivation.Status.ACTIVATED, released.getStatus());
+        assertFalse(released.getCompletedAt().isBefore(activateAt), "Released before the due time");
+        assertEquals(1, actuatorCalls.get(iccid).get());
+    }
+
+    /**
+     * Test that PENDING rows are loaded onto the timing wheel at startup, and that rows
+     * already on the wheel are not loaded a second time, counting releases off the wheel
+     * since a second activation of the same ICCID would be answered from its stored result.
+     */
+    @Test
+    void testStartupLoadReleasesPendingRowsOnce() throws InterruptedException {
+        String scheduledIccid = "scheduled123456789002";
+        String storedIccid = "scheduled123456789003";
+        double releasedBefore = released();
+        LocalDateTime activateAt = LocalDateTime.now().plusSeconds(1);
+        ScheduledActivation scheduled = scheduledActivationService.schedule(
+            scheduledIccid, "scheduled@example.com", activateAt);
+        // Stored without going through the service, as if left behind by an earlier run
+        ScheduledActivation stored = repository.save(
+            new ScheduledActivation(storedIccid, "scheduled@example.com", activateAt));
+
+        scheduledActivationService.run(null);
+
+        assertEquals(ScheduledActivation.Status.ACTIVATED, awaitCompletion(scheduled.getId()).getStatus());
+        assertEquals(ScheduledActivation.Status.ACTIVATED, awaitCompletion(stored.getId()).getStatus());
+        // Give a duplicate timer time to fire before counting
+        Thread.sleep(500);
+        assertEquals(2, released() - releasedBefore, "Each row should be released from the wheel once");
+    }
+
+    private double released() {
+        return meterRegistry.counter("activation.schedule.released").count();
+    }
+
+    private ScheduledActivation awaitCompletion(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + RELEASE_TIMEOUT_MS;
+        while (true) {
+            ScheduledActivation scheduled = repository.findById(id).orElseThrow();
+            if (scheduled.getStatus() != ScheduledActivation.Status.PENDING) {
+                return scheduled;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("Scheduled activation " + id + " was not released in time");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Server-Timing stage breakdown on API responses.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ServerTimingTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api";
+    }
+
+    /**
+     * Test that an activation reports the validation, lookup, actuator and save stages.
+     */
+    @Test
+    void testActivationReportsStages() {
+        SimCardActivationRequest request = new SimCardActivationRequest("timing12345678901234", "timing@example.com");
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/activate", request, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String serverTiming = response.getHeaders().getFirst(ServerTimingAdvice.SERVER_TIMING_HEADER);
+        assertNotNull(serverTiming, "Response should carry a Server-Timing header");
+        for (String stage : new String[] {"validate", "lookup", "actuator", "save", "total"}) {
+            assertTrue(serverTiming.contains(stage + ";dur="), "Missing stage " + stage + " in " + serverTiming);
+        }
+    }
+
+    /**
+     * Test that a repeat activation is answered without calling the actuator.
+     */
+    @Test
+    void testRepeatActivationSkipsActuator() {
+        SimCardActivationRequest request = new SimCardActivationRequest("timing12345678901235", "timing@example.com");
+        restTemplate.postForEntity(baseUrl + "/activate", request, String.class);
+
+        ResponseEntity<String> repeat = restTemplate.postForEntity(baseUrl + "/activate", request, String.class);
+
+        String serverTiming = repeat.getHeaders().getFirst(ServerTimingAdvice.SERVER_TIMING_HEADER);
+        assertNotNull(serverTiming);
+        assertFalse(serverTiming.contains("actuator;dur="), "Repeat activation should not call the actuator: " + serverTiming);
+    }
+}
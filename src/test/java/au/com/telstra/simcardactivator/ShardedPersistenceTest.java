@@ -0,0 +1,161 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests activation records spread over several in-memory H2 shards by a hash of the ICCID.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "sharded"})
+public class ShardedPersistenceTest {
+
+    private static final int RECORDS = 40;
+    private static final String CUSTOMER = "sharded@example.com";
+    private static final int PAGED_RECORDS = 2500;
+    private static final String PAGED_CUSTOMER = "paged@example.com";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @Autowired
+    private SimCardActivationRepository repository;
+
+    @Autowired
+    private ActivationShards shards;
+
+    // Repeat activations are answered from the stored results, so this only stores records once
+    @BeforeEach
+    void activate() {
+        for (int i = 0; i < RECORDS; i++) {
+            activationService.activateSimCard(iccid(i), CUSTOMER);
+        }
+    }
+
+    private static String iccid(int i) {
+        return String.format("shard%015d", i);
+    }
+
+    /**
+     * Test that every record is stored on the shard chosen by its ICCID, and every shard gets some.
+     */
+    @Test
+    void testRecordsAreRoutedByIccid() {
+        assertEquals(4, shards.getShardCount());
+        long total = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int current = shard;
+            List<SimCardActivationRecord> records = shards.onShard(shard, () -> repository.findByCustomerEmailHash(
+                CustomerEmails.hash(CUSTOMER)));
+            assertFalse(records.isEmpty(), "Shard " + shard + " holds no records");
+            for (SimCardActivationRecord record : records) {
+                assertEquals(current, shards.shardFor(record.getIccid()));
+                assertEquals(current, shards.shardForId(record.getId()));
+            }
+            total += records.size();
+        }
+        assertEquals(RECORDS, total);
+    }
+
+    /**
+     * Test that ICCID and id lookups find each record on its shard.
+     */
+    @Test
+    void testLookupsGoToOneShard() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < RECORDS; i++) {
+            SimCardActivationRecord record = activationService.getActivationRecordByIccid(iccid(i)).orElseThrow();
+            assertTrue(ids.add(record.getId()), "Record ids must be unique across shards");
+            assertEquals(iccid(i), activationService.getActivationRecordById(record.getId()).orElseThrow().getIccid());
+        }
+        assertTrue(activationService.isActivationRecorded(iccid(0)));
+
+        ResponseEntity<SimCardActivationRecord> response = restTemplate.getForEntity(
+            "http://localhost:" + port + "/api/activations/" + iccid(7), SimCardActivationRecord.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(iccid(7), response.getBody().getIccid());
+    }
+
+    /**
+     * Test that customer, list and statistics queries gather the records of all shards.
+     */
+    @Test
+    void testQueriesGatherAllShards() {
+        assertEquals(RECORDS, activationService.getActivationRecordsByCustomerEmail(CUSTOMER).size());
+        assertEquals(RECORDS, activationService.getAllActivationRecords().stream()
+            .filter(record -> record.getIccid().startsWith("shard")).count());
+        assertEquals(RECORDS, activationService.getActivationStatistics(CUSTOMER, null).getCustomerActivations());
+    }
+
+    /**
+     * Test that range pages are merged across shards in ICCID order.
+     */
+    @Test
+    void testRangePagesMergeInIccidOrder() {
+        IccidRange range = IccidRange.prefix("shard");
+
+        Slice<SimCardActivationRecord> first = activationService.getActivationRecordsByIccidRange(range, 0, 15);
+        Slice<SimCardActivationRecord> last = activationService.getActivationRecordsByIccidRange(range, 2, 15);
+
+        assertEquals(15, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(iccid(0), first.getContent().get(0).getIccid());
+        assertEquals(iccid(14), first.getContent().get(14).getIccid());
+        assertEquals(10, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+        assertEquals(
+            IntStream.range(30, RECORDS).mapToObj(ShardedPersistenceTest::iccid).collect(Collectors.toList()),
+            last.getContent().stream().map(SimCardActivationRecord::getIccid).collect(Collectors.toList()));
+    }
+
+    /**
+     * Test that the full listing pages through every shard and returns each record once,
+     * including a shard holding several pages of records.
+     */
+    @Test
+    void testListingPagesThroughAllShards() {
+        // Written straight to one shard, so that it holds more than one page
+        List<SimCardActivationRecord> paged = IntStream.range(0, PAGED_RECORDS)
+            .mapToObj(i -> new SimCardActivationRecord(String.format("paged%015d", i), PAGED_CUSTOMER, true))
+            .collect(Collectors.toList());
+        shards.onShard(0, () -> repository.saveAll(paged));
+
+        ResponseEntity<SimCardActivationRecord[]> response = restTemplate.getForEntity(
+            "http://localhost:" + port + "/api/activations", SimCardActivationRecord[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<String> listed = Arrays.stream(response.getBody())
+            .map(SimCardActivationRecord::getIccid)
+            .collect(Collectors.toList());
+        Set<String> unique = new HashSet<>(listed);
+        assertEquals(listed.size(), unique.size(), "No record should be listed twice");
+        for (int i = 0; i < RECORDS; i++) {
+            assertTrue(unique.contains(iccid(i)), "Missing " + iccid(i));
+        }
+        assertEquals(PAGED_RECORDS, unique.stream().filter(iccid -> iccid.startsWith("paged")).count());
+    }
+}
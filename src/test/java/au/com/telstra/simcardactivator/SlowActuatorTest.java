@@ -0,0 +1,131 @@
+package au.com.telstra.simcardactivator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that activations waiting on a hanging actuator do not hold database connections.
+ * The pool is smaller than the number of hanging activations, so reads would stall
+ * if connections were held across the actuator call.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class SlowActuatorTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int HANGING_ACTIVATIONS = 6;
+
+    // Actuator calls block until the gate opens
+    private static volatile CountDownLatch gate = new CountDownLatch(0);
+    private static final AtomicInteger waitingCalls = new AtomicInteger();
+    private static HttpServer actuator;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        actuator = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        actuator.setExecutor(Executors.newCachedThreadPool());
+        actuator.createContext("/actuate", exchange -> {
+            waitingCalls.incrementAndGet();
+            try {
+                gate.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        actuator.start();
+        registry.add("actuator.service.url", () -> "http://localhost:" + actuator.getAddress().getPort() + "/actuate");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:slowactuator");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> POOL_SIZE);
+        registry.add("spring.datasource.hikari.connection-timeout", () -> 1000);
+    }
+
+    @AfterAll
+    static void stopActuator() {
+        gate.countDown();
+        actuator.stop(0);
+    }
+
+    /**
+     * Test that lookups and statistics stay fast while more activations than pooled
+     * connections are waiting on the actuator.
+     */
+    @Test
+    void testReadsStayFastWhileActuatorHangs() throws Exception {
+        String existingIccid = "slow0000000000000000";
+        String baseUrl = "http://localhost:" + port + "/api";
+        assertTrue(activationService.activateSimCard(existingIccid, "slow@example.com"));
+        gate = new CountDownLatch(1);
+        waitingCalls.set(0);
+
+        ExecutorService callers = Executors.newFixedThreadPool(HANGING_ACTIVATIONS);
+        List<CompletableFuture<Boolean>> activations = new ArrayList<>();
+        for (int i = 1; i <= HANGING_ACTIVATIONS; i++) {
+            String iccid = String.format("slow%016d", i);
+            activations.add(CompletableFuture.supplyAsync(
+                () -> activationService.activateSimCard(iccid, "slow@example.com"), callers));
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (waitingCalls.get() < HANGING_ACTIVATIONS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(HANGING_ACTIVATIONS, waitingCalls.get(), "All activations should be waiting on the actuator");
+
+        long started = System.nanoTime();
+        ResponseEntity<String> lookup = restTemplate.getForEntity(baseUrl + "/activations/" + existingIccid, String.class);
+        ResponseEntity<String> stats = restTemplate.getForEntity(baseUrl + "/activations/stats", String.class);
+        ResponseEntity<String> repeat = restTemplate.postForEntity(baseUrl + "/activate",
+            new SimCardActivationRequest(existingIccid, "slow@example.com"), String.class);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(HttpStatus.OK, lookup.getStatusCode());
+        assertEquals(HttpStatus.OK, stats.getStatusCode());
+        assertEquals(HttpStatus.OK, repeat.getStatusCode());
+        assertTrue(elapsedMillis < 1000, "Reads took " + elapsedMillis + " ms while the actuator hung");
+
+        gate.countDown();
+        for (CompletableFuture<Boolean> activation : activations) {
+            assertTrue(activation.get(30, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+    }
+}
@@ -0,0 +1,94 @@
+package au.com.telstra.simcardactivator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the startup warm-up drives real activations against its stub actuator
+ * without leaving data behind, and finishes before the service reports ready.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class StartupWarmupTest {
+
+    private static final int ITERATIONS = 20;
+
+    // Stub activations counted when readiness flipped to accepting traffic, -1 until then
+    private static final AtomicLong stubActivationsWhenReady = new AtomicLong(-1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StartupWarmup warmup;
+
+    @Autowired
+    private SimCardActivationService activationService;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:startupwarmup");
+        // The shared cold tier holds records archived by other tests
+        registry.add("activation.archive.cold.directory", () -> "target/cold-archive-warmup");
+        registry.add("activation.warmup.iterations", () -> ITERATIONS);
+    }
+
+    @TestConfiguration
+    static class ReadinessRecorder {
+
+        @Bean
+        ApplicationListener<AvailabilityChangeEvent<ReadinessState>> readinessRecorder(StartupWarmup warmup) {
+            return event -> {
+                if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                    stubActivationsWhenReady.compareAndSet(-1, warmup.getStubActivations());
+                }
+            };
+        }
+    }
+
+    /**
+     * Test that every warm-up iteration activated through the stub actuator before
+     * readiness flipped, and that the service is ready afterwards.
+     */
+    @Test
+    void testReadinessFlipsAfterWarmup() {
+        assertEquals(ITERATIONS, stubActivationsWhenReady.get(),
+            "All warm-up activations should have run before the service reported ready");
+        assertEquals(ITERATIONS, warmup.getStubActivations());
+
+        ResponseEntity<String> readiness = restTemplate.getForEntity(
+            "http://localhost:" + port + "/actuator/health/readiness", String.class);
+        assertEquals(HttpStatus.OK, readiness.getStatusCode());
+        assertTrue(readiness.getBody().contains("UP"), readiness.getBody());
+    }
+
+    /**
+     * Test that warm-up activations leave no records and no statistics behind.
+     */
+    @Test
+    void testWarmupLeavesNoData() {
+        assertEquals(0, activationService.getAllActivationRecords().size());
+        assertFalse(activationService.isActivationRecorded("89000000000000000100"));
+        assertEquals(0, activationService.getActivationStatistics(null, null).getTotal());
+    }
+}